@@ -0,0 +1,109 @@
+package game2048bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.Formatter;
+import java.util.function.LongSupplier;
+
+/** A small harness for timing operations, for use from the main programs
+ *  of benchmarks. Each operation is run repeatedly for a warmup period,
+ *  so that it is compiled before it is timed, and then for several timed
+ *  periods, of which the best is reported, together with the number of
+ *  bytes the operation allocates on the heap. Allocation is measured
+ *  per thread, so operations must run on the calling thread.
+ */
+public class Bench {
+
+    /** A harness that warms up for WARMUPMILLIS milliseconds and then
+     *  times ROUNDS periods of ROUNDMILLIS milliseconds apiece. */
+    public Bench(long warmupMillis, int rounds, long roundMillis) {
+        _warmupNanos = warmupMillis * 1_000_000;
+        _rounds = rounds;
+        _roundNanos = roundMillis * 1_000_000;
+    }
+
+    /** A harness with the default timing periods. */
+    public Bench() {
+        this(300, 5, 200);
+    }
+
+    /** Time OP, which performs one operation per call and returns a
+     *  result that must not be discarded, and report the result under
+     *  NAME. Return the best time for one operation, in nanoseconds. */
+    public double run(String name, LongSupplier op) {
+        runFor(op, _warmupNanos);
+        boolean measured = allocatedBytes() >= 0;
+        double best = Double.MAX_VALUE;
+        long bytes = 0, calls = 0;
+        for (int k = 0; k < _rounds; k += 1) {
+            long allocated = allocatedBytes();
+            best = Math.min(best, runFor(op, _roundNanos));
+            bytes += allocatedBytes() - allocated;
+            calls += _calls;
+        }
+        report(name, best, measured ? (double) bytes / calls : Double.NaN);
+        return best;
+    }
+
+    /** Call OP repeatedly for about NANOS nanoseconds, setting _calls to
+     *  the number of calls. Return the average time of a call, in
+     *  nanoseconds. The clock is read after batches of calls that grow
+     *  to at most BATCH, so that neither fast operations nor slow ones
+     *  are mismeasured. */
+    private double runFor(LongSupplier op, long nanos) {
+        long calls = 0, sink = 0;
+        long start = System.nanoTime(), elapsed;
+        int batch = 1;
+        do {
+            for (int k = 0; k < batch; k += 1) {
+                sink += op.getAsLong();
+            }
+            calls += batch;
+            batch = Math.min(2 * batch, BATCH);
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < nanos);
+        _sink ^= sink;
+        _calls = calls;
+        return (double) elapsed / calls;
+    }
+
+    /** Return the number of bytes allocated by the current thread so far,
+     *  or -1 if the JVM does not say. */
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean()
+            instanceof com.sun.management.ThreadMXBean threads
+            && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /** Print the time NANOSPEROP and the heap allocation BYTESPEROP of
+     *  the operation NAME. */
+    private void report(String name, double nanosPerOp, double bytesPerOp) {
+        Formatter out = new Formatter();
+        out.format("%-40s %12.2f ns/op %14.0f ops/s %10.1f B/op %9.1f MB/s",
+                   name, nanosPerOp, 1e9 / nanosPerOp, bytesPerOp,
+                   bytesPerOp / nanosPerOp * 1e9 / (1 << 20));
+        System.out.println(out);
+    }
+
+    /** Return a value depending on the results of all operations run, so
+     *  that the compiler cannot discard them. */
+    public long sink() {
+        return _sink;
+    }
+
+    /** Number of calls between checks of the clock. */
+    private static final int BATCH = 64;
+
+    /** Length of the warmup period, in nanoseconds. */
+    private final long _warmupNanos;
+    /** Number of timed periods. */
+    private final int _rounds;
+    /** Length of each timed period, in nanoseconds. */
+    private final long _roundNanos;
+    /** Combined results of all operations run. */
+    private long _sink;
+    /** Number of calls in the last period run. */
+    private long _calls;
+}
@@ -0,0 +1,156 @@
+package game2048logic;
+
+import game2048bench.Bench;
+import game2048rendering.Board;
+import game2048rendering.Side;
+
+import java.util.Random;
+
+/** Measures the speed and heap allocation of the game engine: tilts
+ *  toward each Side, the end-of-game checks, legal moves and successors,
+ *  Board.move, toString and equals, and whole games of random moves, on
+ *  boards of sizes 4, 8, 16 and 32. The positions measured are taken
+ *  from random games, so they are typical of play rather than of any
+ *  particular test.
+ *
+ *  Usage: java game2048logic.EngineBenchmark [SIZE ...]
+ */
+public class EngineBenchmark {
+
+    /** Default board sizes. */
+    private static final int[] SIZES = { 4, 8, 16, 32 };
+
+    /** Number of positions cycled through by each operation. */
+    private static final int POSITIONS = 64;
+
+    /** Probability that a new tile is 2. */
+    private static final double PROB_OF_2 = 0.9;
+
+    public static void main(String[] args) {
+        int[] sizes = SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int k = 0; k < args.length; k += 1) {
+                sizes[k] = Integer.parseInt(args[k]);
+            }
+        }
+        Bench bench = new Bench();
+        for (int size : sizes) {
+            run(bench, size);
+        }
+        System.out.println("(" + bench.sink() + ")");
+    }
+
+    /** Run all the measurements on boards of size SIZE with BENCH. */
+    private static void run(Bench bench, int size) {
+        String label = String.format(" %dx%d", size, size);
+        int[][][] raws = new int[POSITIONS][][];
+        long[] scores = new long[POSITIONS];
+        Model[] models = new Model[POSITIONS];
+        Model[] copies = new Model[POSITIONS];
+        Random random = new Random(size);
+        for (int k = 0; k < POSITIONS; k += 1) {
+            Model model = midgame(size, random.nextLong());
+            raws[k] = raw(model);
+            scores[k] = model.score();
+            models[k] = model;
+            copies[k] = new Model(raws[k], scores[k]);
+        }
+        int[] next = new int[1];
+
+        // Tilts change the model, so each one is made on a fresh copy of
+        // a position. The cost of the copy alone is measured first.
+        bench.run("copy" + label, () -> {
+            int k = next[0]++ & (POSITIONS - 1);
+            return new Model(raws[k], scores[k]).size();
+        });
+        for (Side side : Side.values()) {
+            bench.run("copy + tiltWrapper " + side + label, () -> {
+                int k = next[0]++ & (POSITIONS - 1);
+                return new Model(raws[k], scores[k]).tiltWrapper(side)
+                    .scoreDelta();
+            });
+        }
+        bench.run("gameOver" + label,
+                  () -> models[next[0]++ & (POSITIONS - 1)].gameOver() ? 1 : 0);
+        bench.run("atLeastOneMoveExists" + label,
+                  () -> models[next[0]++ & (POSITIONS - 1)]
+                      .atLeastOneMoveExists() ? 1 : 0);
+
+        bench.run("legalMoves" + label,
+                  () -> models[next[0]++ & (POSITIONS - 1)].legalMoves().size());
+        byte[] successor = new byte[size * size];
+        Side[] sides = Side.values();
+        bench.run("successor(side, packed) x4" + label, () -> {
+            Model model = models[next[0]++ & (POSITIONS - 1)];
+            long points = 0;
+            for (Side side : sides) {
+                points += model.successor(side, successor);
+            }
+            return points;
+        });
+        bench.run("successor(side) x4" + label, () -> {
+            Model model = models[next[0]++ & (POSITIONS - 1)];
+            long n = 0;
+            for (Side side : sides) {
+                n += model.successor(side) == null ? 0 : 1;
+            }
+            return n;
+        });
+
+        Board board = new Board(size);
+        board.addTile(game2048rendering.Tile.create(2, 0, 0));
+        bench.run("Board.move there and back" + label, () -> {
+            board.move(0, size - 1, 0, 0);
+            board.move(0, 0, 0, size - 1);
+            board.clearMoveLog();
+            return board.value(0, 0);
+        });
+
+        bench.run("toString" + label,
+                  () -> models[next[0]++ & (POSITIONS - 1)].toString().length());
+        bench.run("equals" + label, () -> {
+            int k = next[0]++ & (POSITIONS - 1);
+            return models[k].equals(copies[k]) ? 1 : 0;
+        });
+
+        SimulationRunner runner = new SimulationRunner(size, PROB_OF_2, 1);
+        long[] seed = { 1 };
+        bench.run("random playout" + label, () -> {
+            seed[0] += 1;
+            return runner.playGame(seed[0],
+                                   SimulationRunner.randomPolicy(seed[0]))[2];
+        });
+    }
+
+    /** Return a position from a game of random moves on a SIZE x SIZE
+     *  board, seeded with SEED, after about half as many moves as there
+     *  are squares. */
+    private static Model midgame(int size, long seed) {
+        Model model = new Model(size);
+        TileSpawner spawner = new TileSpawner(PROB_OF_2, seed);
+        MovePolicy policy = SimulationRunner.randomPolicy(seed);
+        model.addTile(spawner.newTile(model));
+        model.addTile(spawner.newTile(model));
+        for (int k = 0; k < size * size / 2 && !model.gameOver(); k += 1) {
+            if (model.tiltWrapper(policy.bestMove(model)).moved()
+                && !model.gameOver()) {
+                model.addTile(spawner.newTile(model));
+            }
+        }
+        return model;
+    }
+
+    /** Return the values of MODEL's tiles in the form taken by the
+     *  Model(int[][], long) constructor. */
+    private static int[][] raw(Model model) {
+        int size = model.size();
+        int[][] result = new int[size][size];
+        for (int x = 0; x < size; x += 1) {
+            for (int y = 0; y < size; y += 1) {
+                result[size - 1 - y][x] = model.getBoard().value(x, y);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,92 @@
+package game2048logic;
+
+import game2048bench.Bench;
+import game2048rendering.Side;
+
+import java.util.Random;
+
+/** Compares LineTilt with the tilt of Model on boards of sizes 16 to 256.
+ *  Both tilt the same random positions, about half full, toward each
+ *  Side. Each tilt starts from a fresh copy of a position: Model's are
+ *  restored through Board.restoreExponents, which keeps the board's
+ *  bookkeeping, and LineTilt's are copied with System.arraycopy. The cost
+ *  of each kind of copy alone is measured first.
+ *
+ *  Usage: java game2048logic.LineTiltBenchmark [SIZE ...]
+ */
+public class LineTiltBenchmark {
+
+    /** Default board sizes. */
+    private static final int[] SIZES = { 16, 32, 64, 128, 256 };
+
+    /** Number of positions cycled through by each operation. */
+    private static final int POSITIONS = 8;
+
+    public static void main(String[] args) {
+        int[] sizes = SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int k = 0; k < args.length; k += 1) {
+                sizes[k] = Integer.parseInt(args[k]);
+            }
+        }
+        Bench bench = new Bench();
+        for (int size : sizes) {
+            run(bench, size);
+        }
+        System.out.println("(" + bench.sink() + ")");
+    }
+
+    /** Run all the measurements on boards of size SIZE with BENCH. */
+    private static void run(Bench bench, int size) {
+        String label = String.format(" %dx%d", size, size);
+        byte[][] positions = new byte[POSITIONS][];
+        Random random = new Random(size);
+        for (int k = 0; k < POSITIONS; k += 1) {
+            positions[k] = position(size, random);
+        }
+        int[] next = new int[1];
+
+        Model model = new Model(size);
+        bench.run("restore" + label, () -> {
+            model.getBoard().restoreExponents(
+                positions[next[0]++ & (POSITIONS - 1)], 0);
+            return model.getBoard().emptyCount();
+        });
+        for (Side side : Side.values()) {
+            bench.run("restore + Model.tiltWrapper " + side + label, () -> {
+                model.getBoard().restoreExponents(
+                    positions[next[0]++ & (POSITIONS - 1)], 0);
+                return model.tiltWrapper(side).scoreDelta();
+            });
+        }
+
+        byte[] grid = new byte[size * size];
+        LineTilt lines = new LineTilt(size);
+        bench.run("arraycopy" + label, () -> {
+            System.arraycopy(positions[next[0]++ & (POSITIONS - 1)], 0,
+                             grid, 0, grid.length);
+            return grid[0];
+        });
+        for (Side side : Side.values()) {
+            bench.run("arraycopy + LineTilt " + side + label, () -> {
+                System.arraycopy(positions[next[0]++ & (POSITIONS - 1)], 0,
+                                 grid, 0, grid.length);
+                return lines.tilt(grid, side);
+            });
+        }
+    }
+
+    /** Return a packed SIZE x SIZE position, chosen using RANDOM, in which
+     *  about half of the squares hold tiles, mostly small ones. */
+    private static byte[] position(int size, Random random) {
+        byte[] grid = new byte[size * size];
+        for (int square = 0; square < grid.length; square += 1) {
+            if (random.nextBoolean()) {
+                grid[square] = (byte) (1 + Math.min(random.nextInt(4),
+                                                    random.nextInt(12)));
+            }
+        }
+        return grid;
+    }
+}
@@ -0,0 +1,77 @@
+package game2048logic;
+
+import game2048bench.Bench;
+import game2048rendering.Side;
+
+import java.util.Random;
+
+/** Compares parallel and sequential tilts of Model (see
+ *  Model.setParallel) on boards of sizes 128 to 512, on random positions
+ *  about half full. Each tilt starts from a copy of a position restored
+ *  through Board.restoreExponents, whose cost alone is measured first.
+ *  The speedup depends on the number of processors available to the
+ *  common ForkJoinPool, which is printed.
+ *
+ *  Usage: java game2048logic.ParallelTiltBenchmark [SIZE ...]
+ */
+public class ParallelTiltBenchmark {
+
+    /** Default board sizes. */
+    private static final int[] SIZES = { 128, 256, 512 };
+
+    /** Number of positions cycled through by each operation. */
+    private static final int POSITIONS = 4;
+
+    public static void main(String[] args) {
+        int[] sizes = SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int k = 0; k < args.length; k += 1) {
+                sizes[k] = Integer.parseInt(args[k]);
+            }
+        }
+        System.out.printf("%d processors, parallelism %d%n",
+                          Runtime.getRuntime().availableProcessors(),
+                          java.util.concurrent.ForkJoinPool
+                              .getCommonPoolParallelism());
+        Bench bench = new Bench();
+        for (int size : sizes) {
+            run(bench, size);
+        }
+        System.out.println("(" + bench.sink() + ")");
+    }
+
+    /** Run all the measurements on boards of size SIZE with BENCH. */
+    private static void run(Bench bench, int size) {
+        String label = String.format(" %dx%d", size, size);
+        byte[][] positions = new byte[POSITIONS][size * size];
+        Random random = new Random(size);
+        for (byte[] position : positions) {
+            for (int square = 0; square < position.length; square += 1) {
+                if (random.nextBoolean()) {
+                    position[square] = (byte) (1 + Math.min(random.nextInt(4),
+                                                            random.nextInt(12)));
+                }
+            }
+        }
+        int[] next = new int[1];
+
+        Model model = new Model(size);
+        bench.run("restore" + label, () -> {
+            model.getBoard().restoreExponents(
+                positions[next[0]++ & (POSITIONS - 1)], 0);
+            return model.getBoard().emptyCount();
+        });
+        for (boolean parallel : new boolean[] { false, true }) {
+            model.setParallel(parallel);
+            String kind = parallel ? "parallel" : "sequential";
+            for (Side side : new Side[] { Side.NORTH, Side.EAST }) {
+                bench.run("restore + " + kind + " tilt " + side + label, () -> {
+                    model.getBoard().restoreExponents(
+                        positions[next[0]++ & (POSITIONS - 1)], 0);
+                    return model.tiltWrapper(side).scoreDelta();
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package game2048rendering;
+
+import game2048bench.Bench;
+import game2048logic.Model;
+
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Random;
+
+import static game2048rendering.BoardWidget.*;
+
+/** Compares the time to draw one animation frame of a BoardWidget by
+ *  redrawing the whole board, as the widget once did on every tick, with
+ *  the time to redraw only the cells under moving tiles, on boards of
+ *  sizes 4 to 32. On a half-full board, a tilt moves most tiles, so most
+ *  of the board is redrawn either way. On a full board with gaps in a
+ *  few rows, only those rows move. Also times frames in which every tile
+ *  blooms, which are drawn from pre-rendered images of each tile value
+ *  at each bloom size. Runs headless.
+ *
+ *  Usage: java game2048rendering.BoardWidgetBenchmark [SIZE ...]
+ */
+public class BoardWidgetBenchmark {
+
+    /** Default board sizes. */
+    private static final int[] SIZES = { 4, 8, 16, 32 };
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        int[] sizes = SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int k = 0; k < args.length; k += 1) {
+                sizes[k] = Integer.parseInt(args[k]);
+            }
+        }
+        Bench bench = new Bench();
+        for (int size : sizes) {
+            run(bench, size, false);
+            run(bench, size, true);
+        }
+        System.out.println("(" + bench.sink() + ")");
+    }
+
+    /** Time the drawing of frames on a board of size SIZE with BENCH. The
+     *  board is full except for gaps in three rows if FULL, and otherwise
+     *  about half full. */
+    private static void run(Bench bench, int size, boolean full) {
+        String label = String.format(" %dx%d %s", size, size,
+                                     full ? "full" : "half full");
+        Model model = new Model(size);
+        model.getBoard().setAnimated(true);
+        Random random = new Random(size);
+        if (full) {
+            for (int x = 0; x < size; x += 1) {
+                for (int y = 0; y < size; y += 1) {
+                    if (x > 0 || y % (size / 3 + 1) != 0) {
+                        model.addTile(Tile.create(2 << ((x + 2 * y) % 10),
+                                                  x, y));
+                    }
+                }
+            }
+        } else {
+            for (int k = 0; k < size * size / 2; k += 1) {
+                int x = random.nextInt(size), y = random.nextInt(size);
+                if (model.getBoard().value(x, y) == 0) {
+                    model.addTile(Tile.create(2 << random.nextInt(10), x, y));
+                }
+            }
+        }
+
+        BoardWidget widget = new BoardWidget(size);
+        BufferedImage screen = new BufferedImage(
+            size * TILE_SIDE_SEP + TILE_SEP, size * TILE_SIDE_SEP + TILE_SEP,
+            BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = screen.createGraphics();
+        widget.enqueue(model);
+        while (widget.step()) {
+            continue;
+        }
+        widget.paintComponent(g);
+        model.tiltWrapper(Side.WEST);
+        widget.enqueue(model);
+        widget.step();
+        float dist = widget.startMove();
+
+        Tile[] tiles = new Tile[size * size];
+        int count = 0;
+        for (int x = 0; x < size; x += 1) {
+            for (int y = 0; y < size; y += 1) {
+                if (model.tile(x, y) != null) {
+                    tiles[count] = model.tile(x, y);
+                    count += 1;
+                }
+            }
+        }
+        int tileCount = count;
+        bench.run("whole board, drawn as text" + label, () -> {
+            wholeBoard(g, size, tiles, tileCount);
+            return tileCount;
+        });
+
+        float[] moved = { 0.0f };
+        bench.run("moving tiles only" + label, () -> {
+            moved[0] = moved[0] >= dist ? 0.0f
+                : Math.min(dist, moved[0] + TICK * MOVE_DELTA / 1000.0f);
+            widget.moveTo(moved[0]);
+            return Float.floatToIntBits(moved[0]);
+        });
+        widget.moveTo(dist);
+
+        ArrayList<Tile> bloomers = new ArrayList<>();
+        for (int k = 0; k < tileCount; k += 1) {
+            bloomers.add(tiles[k]);
+        }
+        widget.startBlooming(bloomers);
+        int[] bloom = { 0 };
+        bench.run("every tile blooming" + label, () -> {
+            bloom[0] = (bloom[0] + 1) % (MAX_BLOOM + 1);
+            widget.bloomTo(bloom[0]);
+            return bloom[0];
+        });
+        g.dispose();
+    }
+
+    /** Draw the empty board of size SIZE on G and then the first COUNT
+     *  of TILES, in the way BoardWidget once drew every frame. */
+    private static void wholeBoard(Graphics2D g, int size, Tile[] tiles,
+                                   int count) {
+        int boardSide = size * TILE_SIDE_SEP + TILE_SEP;
+        g.setColor(EMPTY_SQUARE_COLOR);
+        g.fillRect(0, 0, boardSide, boardSide);
+        g.setColor(BAR_COLOR);
+        for (int k = 0; k <= boardSide; k += TILE_SIDE_SEP) {
+            g.fillRect(0, k, boardSide, TILE_SEP);
+            g.fillRect(k, 0, TILE_SEP, boardSide);
+        }
+        for (int k = 0; k < count; k += 1) {
+            Tile tile = tiles[k];
+            int ulx = tile.x() * TILE_SIDE_SEP + TILE_SEP,
+                uly = (size - tile.y() - 1) * TILE_SIDE_SEP + TILE_SEP;
+            if (tile.value() < 100) {
+                g.setFont(TILE_FONT2);
+            } else if (tile.value() < 1000) {
+                g.setFont(TILE_FONT3);
+            } else {
+                g.setFont(TILE_FONT4);
+            }
+            FontMetrics metrics = g.getFontMetrics();
+            g.setColor(TILE_COLORS.get((int) tile.value())[1]);
+            g.fillRect(ulx, uly, TILE_SIDE, TILE_SIDE);
+            g.setColor(TILE_COLORS.get((int) tile.value())[0]);
+            String label = Long.toString(tile.value());
+            g.drawString(label,
+                         ulx + (TILE_SIDE - metrics.stringWidth(label)) / 2,
+                         uly + (2 * TILE_SIDE + metrics.getMaxAscent()) / 4);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package game2048rendering;
+
+import game2048bench.Bench;
+
+/** Compares ways of finding the square at viewed coordinates (x, y) for
+ *  each Side: the arithmetic of Side.x and Side.y, the precomputed view
+ *  maps of Board, and Board.value itself, on boards of sizes 4 to 64.
+ *  Each operation visits every square of the board once.
+ *
+ *  Usage: java game2048rendering.SideRemapBenchmark [SIZE ...]
+ */
+public class SideRemapBenchmark {
+
+    /** Default board sizes. */
+    private static final int[] SIZES = { 4, 8, 16, 32, 64 };
+
+    public static void main(String[] args) {
+        int[] sizes = SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int k = 0; k < args.length; k += 1) {
+                sizes[k] = Integer.parseInt(args[k]);
+            }
+        }
+        Bench bench = new Bench();
+        for (int size : sizes) {
+            Board board = filledBoard(size);
+            for (Side side : Side.values()) {
+                String label = String.format("%dx%d %s", size, size, side);
+                bench.run("arithmetic " + label, () -> arithmetic(size, side));
+                bench.run("view map " + label, () -> mapped(size, side));
+                bench.run("Board.value " + label, () -> {
+                    board.setViewingPerspective(side);
+                    return values(board);
+                });
+            }
+        }
+        System.out.println("(" + bench.sink() + ")");
+    }
+
+    /** Return a combination of the squares at each viewed coordinate of a
+     *  SIZE x SIZE board viewed from SIDE, computed with Side.x and
+     *  Side.y. */
+    private static long arithmetic(int size, Side side) {
+        long sum = 0;
+        for (int x = 0; x < size; x += 1) {
+            for (int y = 0; y < size; y += 1) {
+                sum += side.x(x, y, size) * size + side.y(x, y, size);
+            }
+        }
+        return sum;
+    }
+
+    /** As for arithmetic, but looking the squares up in a view map. */
+    private static long mapped(int size, Side side) {
+        int[] view = Board.viewMap(size, side);
+        long sum = 0;
+        for (int x = 0; x < size; x += 1) {
+            for (int y = 0; y < size; y += 1) {
+                sum += view[x * size + y];
+            }
+        }
+        return sum;
+    }
+
+    /** Return the sum of the values of the squares of BOARD. */
+    private static long values(Board board) {
+        long sum = 0;
+        for (int x = 0; x < board.size(); x += 1) {
+            for (int y = 0; y < board.size(); y += 1) {
+                sum += board.value(x, y);
+            }
+        }
+        return sum;
+    }
+
+    /** Return a SIZE x SIZE board with a tile in every square. */
+    private static Board filledBoard(int size) {
+        Board board = new Board(size);
+        for (int x = 0; x < size; x += 1) {
+            for (int y = 0; y < size; y += 1) {
+                board.addTile(Tile.create(2 << ((x + y) % 10), x, y));
+            }
+        }
+        return board;
+    }
+}
@@ -0,0 +1,307 @@
+package game2048logic;
+
+import game2048rendering.Side;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import static java.lang.Math.min;
+import static java.lang.Math.pow;
+
+/** An automated 2048 player for 4x4 boards. It chooses moves by
+ *  expectimax search over the tiles that can appear after each move: a 2
+ *  with probability probOf2, or otherwise a 4, in a uniformly chosen empty
+ *  square (the rules Game uses). Searches deepen iteratively until the
+ *  time allotted to one move runs out, and the subtrees below each
+ *  possible first move and new tile are searched in parallel.
+ */
+public class AIPlayer implements MovePolicy {
+
+    /** Default limit on the number of moves searched ahead. */
+    public static final int DEFAULT_MAX_DEPTH = 6;
+
+    /** Positions reached with lower probability than this are evaluated
+     *  by heuristic rather than searched further. */
+    private static final double PROB_CUTOFF = 1e-4;
+
+    /** Log2 of the number of entries in the transposition table. */
+    private static final int TABLE_LOG2_SIZE = 20;
+
+    /** Number of nodes searched between checks of the clock. */
+    private static final int CLOCK_INTERVAL = 1024;
+
+    /** Heuristic weights for a row or column of four squares. */
+    private static final double
+        LOST_PENALTY = 200000.0,
+        MONOTONICITY_POWER = 4.0,
+        MONOTONICITY_WEIGHT = 47.0,
+        SUM_POWER = 3.5,
+        SUM_WEIGHT = 11.0,
+        MERGES_WEIGHT = 700.0,
+        EMPTY_WEIGHT = 270.0;
+
+    /** ROW_HEURISTIC[r] is the heuristic value of the 16-bit row R of a
+     *  packed board (see BitboardModel). A board's value is the sum over
+     *  its rows and columns. */
+    private static final float[] ROW_HEURISTIC = new float[1 << 16];
+
+    static {
+        int[] line = new int[BitboardModel.SIZE];
+        for (int row = 0; row < (1 << 16); row += 1) {
+            for (int k = 0; k < line.length; k += 1) {
+                line[k] = (row >>> (4 * k)) & 0xF;
+            }
+            double sum = 0.0;
+            int empty, merges, prev, counter;
+            empty = merges = prev = counter = 0;
+            for (int rank : line) {
+                sum += pow(rank, SUM_POWER);
+                if (rank == 0) {
+                    empty += 1;
+                } else {
+                    if (prev == rank) {
+                        counter += 1;
+                    } else if (counter > 0) {
+                        merges += 1 + counter;
+                        counter = 0;
+                    }
+                    prev = rank;
+                }
+            }
+            if (counter > 0) {
+                merges += 1 + counter;
+            }
+            double monoLeft, monoRight;
+            monoLeft = monoRight = 0.0;
+            for (int k = 1; k < line.length; k += 1) {
+                double d = pow(line[k - 1], MONOTONICITY_POWER)
+                    - pow(line[k], MONOTONICITY_POWER);
+                if (d > 0) {
+                    monoLeft += d;
+                } else {
+                    monoRight -= d;
+                }
+            }
+            ROW_HEURISTIC[row] = (float) (LOST_PENALTY + EMPTY_WEIGHT * empty
+                + MERGES_WEIGHT * merges
+                - MONOTONICITY_WEIGHT * min(monoLeft, monoRight)
+                - SUM_WEIGHT * sum);
+        }
+    }
+
+    /** A player that assumes a new tile is a 2 with probability PROBOF2,
+     *  and that spends at most 1/MOVESPERSECOND seconds choosing each
+     *  move. */
+    public AIPlayer(double probOf2, double movesPerSecond) {
+        this(probOf2, movesPerSecond, DEFAULT_MAX_DEPTH,
+             ForkJoinPool.commonPool());
+    }
+
+    /** A player that assumes a new tile is a 2 with probability PROBOF2,
+     *  that spends at most 1/MOVESPERSECOND seconds choosing each move,
+     *  that looks at most MAXDEPTH moves ahead, and that searches on the
+     *  threads of POOL. */
+    public AIPlayer(double probOf2, double movesPerSecond, int maxDepth,
+                    ForkJoinPool pool) {
+        if (movesPerSecond <= 0 || maxDepth < 1) {
+            throw new IllegalArgumentException("bad search limits");
+        }
+        _probOf2 = probOf2;
+        _moveNanos = (long) (1e9 / movesPerSecond);
+        _maxDepth = maxDepth;
+        _pool = pool;
+        _table = new TranspositionTable(TABLE_LOG2_SIZE);
+    }
+
+    /** Return the best side toward which to tilt MODEL, which must have
+     *  size 4, or null if no tilt changes the board. */
+    @Override
+    public Side bestMove(Model model) {
+        return bestMove(new BitboardModel(model).board());
+    }
+
+    /** Return the best side toward which to tilt MODEL, or null if no
+     *  tilt changes the board. */
+    public Side bestMove(BitboardModel model) {
+        return bestMove(model.board());
+    }
+
+    /** Return the best side toward which to tilt packed board BOARD, or
+     *  null if no tilt changes the board. */
+    Side bestMove(long board) {
+        long deadline = System.nanoTime() + _moveNanos;
+        Side best = null;
+        double bestValue = -1.0;
+        for (Side side : Side.values()) {
+            long next = BitboardModel.tilt(board, side);
+            if (next != board && heuristic(next) > bestValue) {
+                best = side;
+                bestValue = heuristic(next);
+            }
+        }
+        for (int depth = 2; best != null && depth <= _maxDepth; depth += 1) {
+            Side choice = searchRoot(board, depth, deadline);
+            if (choice == null) {
+                break;
+            }
+            best = choice;
+        }
+        return best;
+    }
+
+    /** Return the best move from BOARD found by searching DEPTH (> 1)
+     *  moves ahead, or null if the search did not finish by DEADLINE. */
+    private Side searchRoot(long board, int depth, long deadline) {
+        List<Callable<Double>> tasks = new ArrayList<>();
+        List<Side> sides = new ArrayList<>();
+        for (Side side : Side.values()) {
+            long next = BitboardModel.tilt(board, side);
+            if (next == board) {
+                continue;
+            }
+            int empty = BitboardModel.emptyCount(next);
+            for (int k = 0; k < 16; k += 1) {
+                if (((next >>> (4 * k)) & 0xF) != 0) {
+                    continue;
+                }
+                for (int e = 1; e <= 2; e += 1) {
+                    long spawned = next | ((long) e << (4 * k));
+                    double prob = (e == 1 ? _probOf2 : 1.0 - _probOf2) / empty;
+                    tasks.add(() -> new Search(deadline)
+                              .maxNode(spawned, depth - 1, prob) * prob);
+                    sides.add(side);
+                }
+            }
+        }
+
+        double[] values = new double[Side.values().length];
+        try {
+            List<Future<Double>> results = _pool.invokeAll(tasks);
+            for (int k = 0; k < tasks.size(); k += 1) {
+                values[sides.get(k).ordinal()] += results.get(k).get();
+            }
+        } catch (ExecutionException excp) {
+            if (excp.getCause() instanceof OutOfTime) {
+                return null;
+            }
+            throw new IllegalStateException(excp.getCause());
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+
+        Side best = null;
+        for (Side side : sides) {
+            if (best == null || values[side.ordinal()] > values[best.ordinal()]) {
+                best = side;
+            }
+        }
+        return best;
+    }
+
+    /** Return the heuristic value of packed board B. */
+    private static double heuristic(long b) {
+        return rowHeuristics(b) + rowHeuristics(BitboardModel.transpose(b));
+    }
+
+    /** Return the sum of ROW_HEURISTIC over the rows of B. */
+    private static double rowHeuristics(long b) {
+        return ROW_HEURISTIC[(int) b & 0xFFFF]
+            + ROW_HEURISTIC[(int) (b >>> 16) & 0xFFFF]
+            + ROW_HEURISTIC[(int) (b >>> 32) & 0xFFFF]
+            + ROW_HEURISTIC[(int) (b >>> 48) & 0xFFFF];
+    }
+
+    /** Thrown to abandon a search that has run past its deadline. */
+    private static class OutOfTime extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        OutOfTime() {
+            super(null, null, false, false);
+        }
+    }
+
+    /** The single instance of OutOfTime. */
+    private static final OutOfTime OUT_OF_TIME = new OutOfTime();
+
+    /** The state of one thread's part of a search. */
+    private class Search {
+        /** A search that gives up at time DEADLINE (as per
+         *  System.nanoTime). */
+        Search(long deadline) {
+            _deadline = deadline;
+        }
+
+        /** Return the value of the best move from B when it is our turn
+         *  to move, searching DEPTH moves ahead. PROB is the probability
+         *  of reaching B. Returns 0 if no move is possible. */
+        double maxNode(long b, int depth, double prob) {
+            _nodes += 1;
+            if (_nodes % CLOCK_INTERVAL == 0
+                && System.nanoTime() - _deadline > 0) {
+                throw OUT_OF_TIME;
+            }
+            double best = 0.0;
+            for (Side side : SIDES) {
+                long next = BitboardModel.tilt(b, side);
+                if (next != b) {
+                    best = Math.max(best, chanceNode(next, depth - 1, prob));
+                }
+            }
+            return best;
+        }
+
+        /** Return the expected value of B just before a new tile is
+         *  added, searching DEPTH moves ahead. PROB is the probability of
+         *  reaching B. */
+        double chanceNode(long b, int depth, double prob) {
+            if (depth == 0 || prob < PROB_CUTOFF) {
+                return heuristic(b);
+            }
+            double cached = _table.get(b, depth);
+            if (!Double.isNaN(cached)) {
+                return cached;
+            }
+            int empty = BitboardModel.emptyCount(b);
+            if (empty == 0) {
+                return heuristic(b);
+            }
+            double prob2 = prob * _probOf2 / empty,
+                prob4 = prob * (1.0 - _probOf2) / empty,
+                sum = 0.0;
+            for (int k = 0; k < 16; k += 1) {
+                if (((b >>> (4 * k)) & 0xF) == 0) {
+                    sum += _probOf2 * maxNode(b | (1L << (4 * k)), depth, prob2);
+                    sum += (1.0 - _probOf2)
+                        * maxNode(b | (2L << (4 * k)), depth, prob4);
+                }
+            }
+            double result = sum / empty;
+            _table.put(b, depth, result);
+            return result;
+        }
+
+        /** Time at which to give up. */
+        private final long _deadline;
+        /** Number of positions visited so far. */
+        private long _nodes;
+    }
+
+    /** The possible moves. */
+    private static final Side[] SIDES = Side.values();
+
+    /** Probability that a new tile is a 2. */
+    private final double _probOf2;
+    /** Time allowed for choosing one move, in nanoseconds. */
+    private final long _moveNanos;
+    /** Largest number of moves to search ahead. */
+    private final int _maxDepth;
+    /** Threads on which to search. */
+    private final ForkJoinPool _pool;
+    /** Values of positions already searched, shared by all searches. */
+    private final TranspositionTable _table;
+}
@@ -0,0 +1,318 @@
+package game2048logic;
+
+import game2048rendering.Side;
+
+import java.util.Formatter;
+
+/** The state of a game of 2048 on a 4x4 board, packed into a single long.
+ *  Each square holds the base-2 logarithm of its tile's value in one
+ *  nibble (0 for an empty square), so square (x, y) occupies bits
+ *  4 * (4 * y + x) through 4 * (4 * y + x) + 3. Tilts are computed a row
+ *  at a time through tables giving the result of tilting every possible
+ *  16-bit row, so no tiles are allocated while playing.
+ *
+ *  Because each square has only four bits, the largest representable
+ *  tile is 2^15 = 32768, and two such tiles never merge.
+ */
+public class BitboardModel {
+    /** Number of squares on one side of the board. */
+    public static final int SIZE = 4;
+
+    /** Largest exponent that fits in a nibble. */
+    static final int MAX_EXPONENT = 15;
+
+    /** Exponent of Model.MAX_PIECE. */
+    static final int MAX_PIECE_EXPONENT =
+        Integer.numberOfTrailingZeros(Model.MAX_PIECE);
+
+    /** ROW_LEFT[r] is row R after tilting it toward its lowest nibble
+     *  (x = 0); ROW_RIGHT[r] is row R after tilting it toward its highest
+     *  nibble (x = 3). */
+    private static final char[] ROW_LEFT = new char[1 << 16],
+        ROW_RIGHT = new char[1 << 16];
+
+    /** SCORE_LEFT[r] and SCORE_RIGHT[r] are the points earned by the
+     *  merges in the corresponding entries of ROW_LEFT and ROW_RIGHT. */
+    private static final int[] SCORE_LEFT = new int[1 << 16],
+        SCORE_RIGHT = new int[1 << 16];
+
+    /** Mask of the low bit of every nibble. */
+    private static final long LOW_BITS = 0x1111111111111111L;
+
+    static {
+        int[] line = new int[SIZE];
+        for (int row = 0; row < (1 << 16); row += 1) {
+            int n, score;
+            boolean mergeable;
+            n = score = 0;
+            mergeable = false;
+            for (int k = 0; k < SIZE; k += 1) {
+                int e = (row >>> (4 * k)) & 0xF;
+                if (e == 0) {
+                    continue;
+                }
+                if (mergeable && line[n - 1] == e && e < MAX_EXPONENT) {
+                    line[n - 1] = e + 1;
+                    score += 1 << (e + 1);
+                    mergeable = false;
+                } else {
+                    line[n] = e;
+                    n += 1;
+                    mergeable = true;
+                }
+            }
+            int result = 0;
+            for (int k = 0; k < n; k += 1) {
+                result |= line[k] << (4 * k);
+            }
+            ROW_LEFT[row] = (char) result;
+            SCORE_LEFT[row] = score;
+        }
+        for (int row = 0; row < (1 << 16); row += 1) {
+            int rev = reverseRow(row);
+            ROW_RIGHT[row] = (char) reverseRow(ROW_LEFT[rev]);
+            SCORE_RIGHT[row] = SCORE_LEFT[rev];
+        }
+    }
+
+    /** Current contents of the board. */
+    private long board;
+    /** Current score. */
+    private long score;
+
+    /** A new 2048 game on an empty 4x4 board with score 0. */
+    public BitboardModel() {
+        board = 0;
+        score = 0;
+    }
+
+    /** A new 2048 game where RAWVALUES contain the values of the tiles
+     *  (0 if empty), laid out as for Model(int[][], long), and the score
+     *  is SCORE. */
+    public BitboardModel(int[][] rawValues, long score) {
+        if (rawValues.length != SIZE) {
+            throw new IllegalArgumentException("board must be 4x4");
+        }
+        for (int y = 0; y < SIZE; y += 1) {
+            if (rawValues[SIZE - 1 - y].length != SIZE) {
+                throw new IllegalArgumentException("board must be 4x4");
+            }
+            for (int x = 0; x < SIZE; x += 1) {
+                int value = rawValues[SIZE - 1 - y][x];
+                if (value != 0) {
+                    addTile(value, x, y);
+                }
+            }
+        }
+        this.score = score;
+    }
+
+    /** A new 2048 game holding the same position and score as MODEL,
+     *  which must have size 4. */
+    public BitboardModel(Model model) {
+        if (model.size() != SIZE) {
+            throw new IllegalArgumentException("board must be 4x4");
+        }
+        for (int y = 0; y < SIZE; y += 1) {
+            for (int x = 0; x < SIZE; x += 1) {
+                int value = model.getBoard().value(x, y);
+                if (value != 0) {
+                    addTile(value, x, y);
+                }
+            }
+        }
+        score = model.score();
+    }
+
+    /** Return the number of squares on one side of the board. */
+    public int size() {
+        return SIZE;
+    }
+
+    /** Return the current score. */
+    public long score() {
+        return score;
+    }
+
+    /** Return the packed representation of the board. */
+    public long board() {
+        return board;
+    }
+
+    /** Return the value of the tile at (x, y), where 0 <= x, y < 4, or 0
+     *  if that square is empty. */
+    public int value(int x, int y) {
+        int e = exponent(board, x, y);
+        return e == 0 ? 0 : 1 << e;
+    }
+
+    /** Clear the board to empty and reset the score. */
+    public void clear() {
+        board = 0;
+        score = 0;
+    }
+
+    /** Add a tile with VALUE, a power of two no larger than 2^15, at
+     *  (x, y), which must currently be empty. */
+    public void addTile(int value, int x, int y) {
+        if (value < 2 || Integer.bitCount(value) != 1
+            || Integer.numberOfTrailingZeros(value) > MAX_EXPONENT) {
+            throw new IllegalArgumentException("bad tile value: " + value);
+        }
+        if (exponent(board, x, y) != 0) {
+            throw new IllegalArgumentException(
+                String.format("square (%d, %d) is occupied", x, y));
+        }
+        board |= (long) Integer.numberOfTrailingZeros(value) << shift(x, y);
+    }
+
+    /** Return true iff the game is over (there are no moves, or
+     *  there is a tile with value Model.MAX_PIECE on the board). */
+    public boolean gameOver() {
+        return maxTileExists() || !atLeastOneMoveExists();
+    }
+
+    /** Returns true if at least one space on the board is empty. */
+    public boolean emptySpaceExists() {
+        return hasEmpty(board);
+    }
+
+    /** Returns true if any tile is equal to Model.MAX_PIECE. */
+    public boolean maxTileExists() {
+        for (long b = board; b != 0; b >>>= 4) {
+            if ((b & 0xF) == MAX_PIECE_EXPONENT) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Returns true if there are any valid moves on the board. */
+    public boolean atLeastOneMoveExists() {
+        return canMove(board);
+    }
+
+    /** Tilt the board toward SIDE, adding the points from any merges
+     *  to the score. */
+    public void tilt(Side side) {
+        score += tiltScore(board, side);
+        board = tilt(board, side);
+    }
+
+    /** Tilt the board toward SIDE. Provided for compatibility with
+     *  Model; there are no merge flags to reset between tilts. */
+    public void tiltWrapper(Side side) {
+        tilt(side);
+    }
+
+    /** Return the exponent in square (x, y) of packed board B. */
+    static int exponent(long b, int x, int y) {
+        return (int) (b >>> shift(x, y)) & 0xF;
+    }
+
+    /** Return the bit offset of square (x, y). */
+    private static int shift(int x, int y) {
+        return 4 * (SIZE * y + x);
+    }
+
+    /** Return true iff packed board B has an empty square. */
+    static boolean hasEmpty(long b) {
+        long occupied = (b | b >>> 1 | b >>> 2 | b >>> 3) & LOW_BITS;
+        return occupied != LOW_BITS;
+    }
+
+    /** Return the number of empty squares on packed board B. */
+    static int emptyCount(long b) {
+        return Long.bitCount(~(b | b >>> 1 | b >>> 2 | b >>> 3) & LOW_BITS);
+    }
+
+    /** Return true iff some tilt changes packed board B. */
+    static boolean canMove(long b) {
+        return hasEmpty(b) || tiltRows(b, ROW_LEFT) != b
+            || tiltRows(transpose(b), ROW_LEFT) != transpose(b);
+    }
+
+    /** Return packed board B tilted toward SIDE. */
+    static long tilt(long b, Side side) {
+        return switch (side) {
+            case WEST -> tiltRows(b, ROW_LEFT);
+            case EAST -> tiltRows(b, ROW_RIGHT);
+            case NORTH -> transpose(tiltRows(transpose(b), ROW_RIGHT));
+            case SOUTH -> transpose(tiltRows(transpose(b), ROW_LEFT));
+        };
+    }
+
+    /** Return the points earned by tilting packed board B toward SIDE. */
+    static int tiltScore(long b, Side side) {
+        return switch (side) {
+            case WEST -> rowScores(b, SCORE_LEFT);
+            case EAST -> rowScores(b, SCORE_RIGHT);
+            case NORTH -> rowScores(transpose(b), SCORE_RIGHT);
+            case SOUTH -> rowScores(transpose(b), SCORE_LEFT);
+        };
+    }
+
+    /** Return B with each of its rows replaced through TABLE. */
+    private static long tiltRows(long b, char[] table) {
+        return (long) table[(int) b & 0xFFFF]
+            | (long) table[(int) (b >>> 16) & 0xFFFF] << 16
+            | (long) table[(int) (b >>> 32) & 0xFFFF] << 32
+            | (long) table[(int) (b >>> 48) & 0xFFFF] << 48;
+    }
+
+    /** Return the sum of TABLE over the rows of B. */
+    private static int rowScores(long b, int[] table) {
+        return table[(int) b & 0xFFFF]
+            + table[(int) (b >>> 16) & 0xFFFF]
+            + table[(int) (b >>> 32) & 0xFFFF]
+            + table[(int) (b >>> 48) & 0xFFFF];
+    }
+
+    /** Return B with square (x, y) exchanged with square (y, x). */
+    static long transpose(long b) {
+        long a1 = b & 0xF0F00F0FF0F00F0FL,
+            a2 = b & 0x0000F0F00000F0F0L,
+            a3 = b & 0x0F0F00000F0F0000L,
+            a = a1 | (a2 << 12) | (a3 >>> 12),
+            b1 = a & 0xFF00FF0000FF00FFL,
+            b2 = a & 0x00FF00FF00000000L,
+            b3 = a & 0x00000000FF00FF00L;
+        return b1 | (b2 >>> 24) | (b3 << 24);
+    }
+
+    /** Return the 16-bit ROW with the order of its nibbles reversed. */
+    private static int reverseRow(int row) {
+        return (row >>> 12) | ((row >>> 4) & 0x00F0)
+            | ((row << 4) & 0x0F00) | ((row << 12) & 0xF000);
+    }
+
+    @Override
+    public String toString() {
+        Formatter out = new Formatter();
+        out.format("%n[%n");
+        for (int y = SIZE - 1; y >= 0; y -= 1) {
+            for (int x = 0; x < SIZE; x += 1) {
+                if (value(x, y) == 0) {
+                    out.format("|    ");
+                } else {
+                    out.format("|%4d", value(x, y));
+                }
+            }
+            out.format("|%n");
+        }
+        String over = gameOver() ? "over" : "not over";
+        out.format("] %d (game is %s) %n", score(), over);
+        return out.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return (o instanceof BitboardModel m)
+            && board == m.board && score == m.score;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(board) * 31 + Long.hashCode(score);
+    }
+}
@@ -0,0 +1,163 @@
+package game2048logic;
+
+import game2048rendering.Board;
+import game2048rendering.Side;
+
+import java.util.Arrays;
+
+/** An immutable 2048 position: the tiles on a square board, held as
+ *  exponents packed as by Board.saveExponents (square (x, y) is byte
+ *  x * size + y, holding e for a tile of value 2^e and 0 for an empty
+ *  square). Unlike a Board, a BoardState has no viewing perspective,
+ *  listeners or other changing state, so any number of threads may read
+ *  and tilt the same one without locking. Tilting yields a new state;
+ *  the hash code and largest tile are computed once, when a state is
+ *  made. Two states are equal iff they hold the same tiles.
+ */
+public final class BoardState {
+
+    /** The position packed in EXPONENTS (which is not copied) on a
+     *  SIZE x SIZE board, reached by a tilt that earned POINTS. */
+    private BoardState(int size, byte[] exponents, long points) {
+        _size = size;
+        _grid = exponents;
+        _points = points;
+        int max = 0;
+        for (byte e : exponents) {
+            max = Math.max(max, e);
+        }
+        _maxExponent = max;
+        _hash = 31 * Arrays.hashCode(exponents) + size;
+    }
+
+    /** Return the position now on BOARD. */
+    public static BoardState of(Board board) {
+        byte[] exponents = new byte[board.size() * board.size()];
+        board.saveExponents(exponents, 0);
+        return new BoardState(board.size(), exponents, 0);
+    }
+
+    /** Return the position on a SIZE x SIZE board packed in EXPONENTS,
+     *  starting at OFFSET. */
+    public static BoardState of(int size, byte[] exponents, int offset) {
+        byte[] grid = Arrays.copyOfRange(exponents, offset,
+                                         offset + size * size);
+        for (byte e : grid) {
+            if (e < 0 || e > Board.MAX_EXPONENT) {
+                throw new IllegalArgumentException("bad exponent: " + e);
+            }
+        }
+        return new BoardState(size, grid, 0);
+    }
+
+    /** Set the tiles of BOARD, which must be the same size as this
+     *  position, to this position, as by Board.restoreExponents. */
+    public void copyTo(Board board) {
+        if (board.size() != _size) {
+            throw new IllegalArgumentException("board must be " + _size
+                                               + "x" + _size);
+        }
+        board.restoreExponents(_grid, 0);
+    }
+
+    /** Store the exponents of this position in DEST, starting at OFFSET,
+     *  packed as by Board.saveExponents. */
+    public void saveExponents(byte[] dest, int offset) {
+        System.arraycopy(_grid, 0, dest, offset, _grid.length);
+    }
+
+    /** Return the number of squares on a side of the board. */
+    public int size() {
+        return _size;
+    }
+
+    /** Return e for the tile of value 2^e at (X, Y), or 0 if that square
+     *  is empty. */
+    public int exponent(int x, int y) {
+        return _grid[x * _size + y];
+    }
+
+    /** Return the value of the tile at (X, Y), or 0 if that square is
+     *  empty. */
+    public long value(int x, int y) {
+        int e = exponent(x, y);
+        return e == 0 ? 0 : 1L << e;
+    }
+
+    /** Return the largest exponent of any tile, or 0 if there are none. */
+    public int maxExponent() {
+        return _maxExponent;
+    }
+
+    /** Return the value of the largest tile, or 0 if there are none. */
+    public long maxTile() {
+        return _maxExponent == 0 ? 0 : 1L << _maxExponent;
+    }
+
+    /** Return the number of empty squares. */
+    public int emptyCount() {
+        int count = 0;
+        for (byte e : _grid) {
+            count += e == 0 ? 1 : 0;
+        }
+        return count;
+    }
+
+    /** Return the points earned by the tilt that made this state, or 0 if
+     *  it was not made by a tilt. */
+    public long points() {
+        return _points;
+    }
+
+    /** Return the position that results from tilting this one toward
+     *  SIDE, as Model.tilt would, or null if that would not change it. */
+    public BoardState tilt(Side side) {
+        byte[] next = _grid.clone();
+        long points = LineTilt.forThread(_size).tilt(next, side);
+        return points < 0 ? null : new BoardState(_size, next, points);
+    }
+
+    /** Return this position with a tile of value 2^E (E > 0) added at
+     *  the empty square (X, Y). */
+    public BoardState withTile(int x, int y, int e) {
+        int square = x * _size + y;
+        if (_grid[square] != 0) {
+            throw new IllegalArgumentException("square is not empty");
+        }
+        if (e <= 0 || e > Board.MAX_EXPONENT) {
+            throw new IllegalArgumentException("bad exponent: " + e);
+        }
+        byte[] next = _grid.clone();
+        next[square] = (byte) e;
+        return new BoardState(_size, next, 0);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof BoardState other && other._hash == _hash
+            && other._size == _size && Arrays.equals(other._grid, _grid);
+    }
+
+    @Override
+    public int hashCode() {
+        return _hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        PositionWriter.appendText(out, _size, 0, _grid);
+        return out.toString();
+    }
+
+    /** Number of squares on a side of the board. */
+    private final int _size;
+    /** The exponents of the tiles, never changed once made. */
+    private final byte[] _grid;
+    /** Points earned by the tilt that made this state. */
+    private final long _points;
+    /** Largest exponent of any tile. */
+    private final int _maxExponent;
+    /** Hash code. */
+    private final int _hash;
+}
@@ -0,0 +1,370 @@
+package game2048logic;
+
+import game2048rendering.Board;
+import game2048rendering.Side;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/** A TCP server hosting many games of 2048 at once, one per connection,
+ *  each played with a line protocol. A client sends one command per line
+ *  and gets one line in reply to each:
+ *  <ul>
+ *  <li> "N", "E", "S" or "W": tilt toward that side and, if the board
+ *       changed, add a random tile. Reply "POINTS SCORE OVER", where
+ *       POINTS is the points earned, or -1 if the board did not change,
+ *       SCORE is the new score and OVER is 1 iff no tilt can change the
+ *       board now, and 0 otherwise.
+ *  <li> "NEW [SIZE [SEED]]": start a new game on a SIZE x SIZE board
+ *       (by default the size of the last one), with two random tiles,
+ *       using SEED for the random tiles (unpredictably if 0, the default).
+ *       Reply "OK".
+ *  <li> "BOARD": reply with the position and score in the text form of
+ *       PositionWriter.toText.
+ *  <li> "QUIT": reply "BYE" and close the connection.
+ *  </ul>
+ *  Anything else, including a line longer than MAX_LINE characters, gets
+ *  the reply "ERROR" followed by a message. A connection starts with a
+ *  new game on a DEFAULT_SIZE board.
+ *
+ *  Each session keeps only a packed board (as by Board.saveExponents),
+ *  its score and its random numbers, and is tilted with its thread's
+ *  LineTilt (see LineTilt.forThread) rather than through a Model. Its
+ *  input is read through a buffer of READ_BUFFER bytes, and its replies
+ *  are collected in a StringBuilder while more commands are already
+ *  waiting to be read, then written straight to the socket, so that a
+ *  client that sends several commands at once gets their replies in as
+ *  few packets.
+ *
+ *  Sessions run on virtual threads where the Java runtime has them, so
+ *  that tens of thousands may be open at once; otherwise each takes a
+ *  platform thread from a cached pool. Only in the second case do later
+ *  sessions reuse the LineTilts of earlier ones: a virtual thread serves
+ *  a single session, so each session made there has a LineTilt of its
+ *  own from its first tilt until it ends.
+ *
+ *  Usage: java game2048logic.GameServer [PORT], where PORT defaults to
+ *  DEFAULT_PORT.
+ */
+public class GameServer implements Closeable {
+
+    /** Port on which main listens by default. */
+    public static final int DEFAULT_PORT = 2048;
+    /** Number of squares on the side of a new session's board. */
+    public static final int DEFAULT_SIZE = 4;
+    /** Largest board a session may ask for. */
+    static final int MAX_SIZE = 64;
+    /** Probability that a new tile is 2, rather than 4. */
+    static final double PROB_OF_2 = 0.9;
+    /** Longest command line accepted, not counting its terminator. */
+    static final int MAX_LINE = 64;
+
+    /** A server listening on PORT of the loopback address (any free port
+     *  if PORT is 0). It accepts no connections until started. */
+    public GameServer(int port) throws IOException {
+        _listener = new ServerSocket(port, BACKLOG,
+                                     InetAddress.getLoopbackAddress());
+    }
+
+    /** Return the port on which this server listens. */
+    public int port() {
+        return _listener.getLocalPort();
+    }
+
+    /** Return the number of sessions begun so far. */
+    public long sessions() {
+        return _sessions.get();
+    }
+
+    /** Start accepting connections on a thread of its own, and return
+     *  this server. */
+    public GameServer start() {
+        Thread acceptor = new Thread(this::acceptAll, "game2048-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return this;
+    }
+
+    /** Accept connections and start a session for each until closed.
+     *  After a failure to accept, such as running out of file
+     *  descriptors, wait before trying again, twice as long after each
+     *  failure in a row, up to MAX_ACCEPT_DELAY milliseconds. */
+    private void acceptAll() {
+        long delay = 0;
+        while (!_listener.isClosed()) {
+            try {
+                Socket socket = _listener.accept();
+                delay = 0;
+                _open.add(socket);
+                _sessions.incrementAndGet();
+                _executor.execute(() -> serve(socket));
+            } catch (IOException excp) {
+                if (_listener.isClosed()) {
+                    break;
+                }
+                delay = Math.min(MAX_ACCEPT_DELAY, Math.max(1, 2 * delay));
+                System.err.printf("accept failed: %s; retrying in %d ms%n",
+                                  excp.getMessage(), delay);
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupt) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    /** Play the session on SOCKET until the client quits or goes away. */
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(socket.getInputStream(),
+                                                     READ_BUFFER);
+            OutputStream out = socket.getOutputStream();
+            Session session = new Session(DEFAULT_SIZE, 0);
+            StringBuilder command = new StringBuilder(MAX_LINE);
+            StringBuilder replies = new StringBuilder();
+            boolean playing = true;
+            while (playing) {
+                int length = readLine(in, command);
+                if (length < 0) {
+                    break;
+                }
+                if (length > MAX_LINE) {
+                    replies.append("ERROR line too long");
+                } else {
+                    playing = session.execute(command.toString(), replies);
+                }
+                replies.append('\n');
+                if (!playing || in.available() == 0) {
+                    out.write(replies.toString().getBytes(US_ASCII));
+                    replies.setLength(0);
+                }
+            }
+        } catch (IOException excp) {
+            /* The client went away; so does its session. */
+        } finally {
+            _open.remove(socket);
+        }
+    }
+
+    /** Read a line from IN into LINE, replacing its contents, and return
+     *  the line's length, not counting the terminating newline, or -1 if
+     *  IN has ended. Only the first MAX_LINE characters are kept in LINE;
+     *  the rest are read and discarded. Bytes are read as ASCII. */
+    static int readLine(InputStream in, StringBuilder line)
+        throws IOException {
+        line.setLength(0);
+        int length = 0;
+        for (int c = in.read(); c != '\n'; c = in.read()) {
+            if (c < 0) {
+                return length == 0 ? -1 : length;
+            }
+            if (length < MAX_LINE) {
+                line.append((char) c);
+            }
+            length += 1;
+        }
+        return length;
+    }
+
+    /** Stop accepting connections and end all sessions. */
+    @Override
+    public void close() throws IOException {
+        _listener.close();
+        for (Socket socket : _open) {
+            socket.close();
+        }
+        _executor.shutdownNow();
+    }
+
+    /** Return an executor that runs each task on a new virtual thread, if
+     *  this Java runtime has them, and otherwise on a daemon thread from
+     *  a cached pool. */
+    static ExecutorService newSessionExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException excp) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /** One game, held as a packed board. Not safe for use by several
+     *  threads at once. */
+    static class Session {
+        /** A game on a SIZE x SIZE board with two random tiles, drawn
+         *  using SEED (unpredictably if 0). */
+        Session(int size, long seed) {
+            newGame(size, seed);
+        }
+
+        /** Start a new game as for Session(SIZE, SEED). */
+        void newGame(int size, long seed) {
+            if (size != _size) {
+                _size = size;
+                _grid = new byte[size * size];
+            } else {
+                Arrays.fill(_grid, (byte) 0);
+            }
+            _random = seed == 0 ? new Random() : new Random(seed);
+            _score = 0;
+            addTile();
+            addTile();
+        }
+
+        /** Tilt toward SIDE and, if that changed the board, add a random
+         *  tile. Return the points earned, or -1 if nothing moved. */
+        long tilt(Side side) {
+            long points = LineTilt.forThread(_size).tilt(_grid, side);
+            if (points >= 0) {
+                _score += points;
+                addTile();
+            }
+            return points;
+        }
+
+        /** Add a tile at a random empty square, if there is one: a 2 with
+         *  probability PROB_OF_2, and otherwise a 4. */
+        private void addTile() {
+            int empty = 0;
+            for (byte e : _grid) {
+                empty += e == 0 ? 1 : 0;
+            }
+            if (empty == 0) {
+                return;
+            }
+            int k = _random.nextInt(empty);
+            int e = _random.nextDouble() <= PROB_OF_2 ? 1 : 2;
+            for (int s = 0; s < _grid.length; s += 1) {
+                if (_grid[s] == 0) {
+                    if (k == 0) {
+                        _grid[s] = (byte) e;
+                        return;
+                    }
+                    k -= 1;
+                }
+            }
+        }
+
+        /** Return true iff no tilt would change the board. */
+        boolean over() {
+            for (int x = 0; x < _size; x += 1) {
+                for (int y = 0; y < _size; y += 1) {
+                    int s = x * _size + y, e = _grid[s];
+                    if (e == 0
+                        || e < Board.MAX_EXPONENT
+                           && (y + 1 < _size && _grid[s + 1] == e
+                               || x + 1 < _size && _grid[s + _size] == e)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /** Execute COMMAND, appending the reply to REPLIES without a line
+         *  terminator. Return false iff the session is to end. */
+        boolean execute(String command, StringBuilder replies) {
+            String[] words = command.trim().split(" +");
+            switch (words[0]) {
+                case "N", "E", "S", "W" -> {
+                    if (words.length != 1) {
+                        replies.append("ERROR extra arguments");
+                        break;
+                    }
+                    long points = tilt(side(words[0].charAt(0)));
+                    replies.append(points).append(' ').append(_score)
+                        .append(' ').append(over() ? 1 : 0);
+                }
+                case "NEW" -> {
+                    try {
+                        int size = words.length > 1
+                            ? Integer.parseInt(words[1]) : _size;
+                        long seed = words.length > 2
+                            ? Long.parseLong(words[2]) : 0;
+                        if (words.length > 3 || size < 1 || size > MAX_SIZE) {
+                            replies.append("ERROR bad NEW command");
+                            break;
+                        }
+                        newGame(size, seed);
+                        replies.append("OK");
+                    } catch (NumberFormatException excp) {
+                        replies.append("ERROR bad NEW command");
+                    }
+                }
+                case "BOARD" -> PositionWriter.appendText(replies, _size,
+                                                          _score, _grid);
+                case "QUIT" -> {
+                    replies.append("BYE");
+                    return false;
+                }
+                default -> replies.append("ERROR unknown command");
+            }
+            return true;
+        }
+
+        /** Return the side whose name starts with the letter C. */
+        private static Side side(char c) {
+            return switch (c) {
+                case 'N' -> Side.NORTH;
+                case 'E' -> Side.EAST;
+                case 'S' -> Side.SOUTH;
+                default -> Side.WEST;
+            };
+        }
+
+        /** Number of squares on a side of the board. */
+        private int _size;
+        /** The board, packed as by Board.saveExponents. */
+        private byte[] _grid;
+        /** The current score. */
+        private long _score;
+        /** Source of the random tiles. */
+        private Random _random;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        GameServer server = new GameServer(port);
+        System.err.printf("listening on port %d%n", server.port());
+        server.acceptAll();
+    }
+
+    /** Length of the queue of connections not yet accepted. */
+    private static final int BACKLOG = 4096;
+    /** Longest wait after a failure to accept, in milliseconds. */
+    private static final long MAX_ACCEPT_DELAY = 1000;
+    /** Size of each session's input buffer, in bytes: enough for many
+     *  pipelined moves. */
+    private static final int READ_BUFFER = 256;
+
+    /** Accepts connections. */
+    private final ServerSocket _listener;
+    /** Runs the sessions. */
+    private final ExecutorService _executor = newSessionExecutor();
+    /** Connections whose sessions are running. */
+    private final Set<Socket> _open = ConcurrentHashMap.newKeySet();
+    /** Number of sessions begun. */
+    private final AtomicLong _sessions = new AtomicLong();
+}
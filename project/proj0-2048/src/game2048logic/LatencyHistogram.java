@@ -0,0 +1,133 @@
+package game2048logic;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/** A histogram of nonnegative long values, such as latencies in
+ *  nanoseconds, that any number of threads may record into at once
+ *  without locking. As in HdrHistogram, values are counted in buckets
+ *  whose widths grow with their magnitude: each power of 2 is split into
+ *  SUB_BUCKETS buckets, so that any value is known to within 1 part in
+ *  SUB_BUCKETS (12.5%) from a fixed table of 488 counters, whatever its
+ *  range. Recording a value is a few shifts, an atomic add to its
+ *  bucket, two LongAdder adds (which do not contend between threads) for
+ *  the count and sum, and a read of the maximum, which is replaced by a
+ *  compare-and-set only when the value exceeds it.
+ */
+public class LatencyHistogram {
+
+    /** Base-2 logarithm of the number of buckets per power of 2. */
+    private static final int SUB_BITS = 3;
+    /** Number of buckets per power of 2. */
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+    /** Number of buckets, enough for all nonnegative longs. */
+    private static final int BUCKETS = (Long.SIZE - SUB_BITS) * SUB_BUCKETS;
+
+    /** Record VALUE, which must be nonnegative (negative values are
+     *  counted as 0). */
+    public void record(long value) {
+        value = Math.max(0, value);
+        _counts.getAndIncrement(bucket(value));
+        _count.increment();
+        _sum.add(value);
+        long max = _max.get();
+        while (value > max && !_max.compareAndSet(max, value)) {
+            max = _max.get();
+        }
+    }
+
+    /** Return the number of values recorded. */
+    public long count() {
+        return _count.sum();
+    }
+
+    /** Return the mean of the values recorded, or 0 if there are none. */
+    public double mean() {
+        long count = count();
+        return count == 0 ? 0 : (double) _sum.sum() / count;
+    }
+
+    /** Return the largest value recorded, or 0 if there are none. */
+    public long max() {
+        return _max.get();
+    }
+
+    /** Return a value that at least the fraction Q (0 <= Q <= 1) of the
+     *  values recorded do not exceed: the upper end of the bucket holding
+     *  that quantile, or max() if that is smaller. Return 0 if there are
+     *  no values. Values recorded while this runs may or may not be
+     *  counted. */
+    public long percentile(double q) {
+        long total = 0;
+        long[] counts = new long[BUCKETS];
+        for (int b = 0; b < BUCKETS; b += 1) {
+            counts[b] = _counts.get(b);
+            total += counts[b];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b += 1) {
+            seen += counts[b];
+            if (seen >= rank) {
+                return Math.min(max(), lowestValue(b + 1) - 1);
+            }
+        }
+        return max();
+    }
+
+    /** Forget all values recorded. Values recorded while this runs may or
+     *  may not be forgotten. */
+    public void reset() {
+        for (int b = 0; b < BUCKETS; b += 1) {
+            _counts.set(b, 0);
+        }
+        _count.reset();
+        _sum.reset();
+        _max.set(0);
+    }
+
+    /** Return the bucket holding VALUE (>= 0). Values below SUB_BUCKETS
+     *  have buckets of their own; above that, bucket
+     *  (m - SUB_BITS + 1) * SUB_BUCKETS + s holds the values whose highest
+     *  bit is bit M and whose next SUB_BITS bits are S. */
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int m = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        return ((m - SUB_BITS + 1) << SUB_BITS)
+            + (int) (value >>> (m - SUB_BITS)) - SUB_BUCKETS;
+    }
+
+    /** Return the smallest value in BUCKET, or Long.MAX_VALUE + 1 (that
+     *  is, Long.MIN_VALUE) for the bucket after the last. */
+    static long lowestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int group = bucket >>> SUB_BITS;
+        return (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1)))
+            << (group - 1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.0f p50=%d p90=%d p99=%d p99.9=%d"
+                             + " max=%d", count(), mean(), percentile(0.5),
+                             percentile(0.9), percentile(0.99),
+                             percentile(0.999), max());
+    }
+
+    /** _counts[b] is the number of values recorded in bucket B. */
+    private final AtomicLongArray _counts = new AtomicLongArray(BUCKETS);
+    /** Number of values recorded. */
+    private final LongAdder _count = new LongAdder();
+    /** Sum of the values recorded. */
+    private final LongAdder _sum = new LongAdder();
+    /** Largest value recorded. */
+    private final AtomicLong _max = new AtomicLong();
+}
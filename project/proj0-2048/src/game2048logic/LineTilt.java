@@ -0,0 +1,237 @@
+package game2048logic;
+
+import game2048rendering.Board;
+import game2048rendering.Side;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/** A tilt for large boards held as primitive arrays of exponents, packed
+ *  as by Board.saveExponents: square (x, y) is byte x * size + y, holding
+ *  e for a tile of value 2^e and 0 for an empty square. It does what
+ *  Model.tilt does to the tiles and score, but keeps none of the Board's
+ *  bookkeeping (free squares, counts, move log), so it suits searches and
+ *  analyses that only need positions.
+ *
+ *  Each line is compacted and merged in one pass. The pass reads the line
+ *  eight squares at a time as a long and finds the occupied squares with
+ *  SWAR (SIMD within a register) bit tricks, so runs of empty squares
+ *  cost one step per eight squares. Columns are contiguous in the array,
+ *  so NORTH and SOUTH tilts work in place; for EAST and WEST the array is
+ *  first transposed, eight by eight squares at a time in eight longs,
+ *  into a scratch array whose lines are then contiguous.
+ *
+ *  As in BitboardModel, two tiles of the largest value a board holds,
+ *  2^Board.MAX_EXPONENT, do not merge. A LineTilt is not safe for use by
+ *  several threads at once.
+ */
+public class LineTilt {
+
+    /** A tilt for SIZE x SIZE boards. */
+    public LineTilt(int size) {
+        _size = size;
+        _scratch = new byte[size * size];
+    }
+
+    /** Return a tilt for SIZE x SIZE boards belonging to the current
+     *  thread, so that threads sharing positions need not share scratch
+     *  space. The thread's tilt is replaced when SIZE changes. */
+    static LineTilt forThread(int size) {
+        LineTilt kernel = PER_THREAD.get();
+        if (kernel == null || kernel._size != size) {
+            kernel = new LineTilt(size);
+            PER_THREAD.set(kernel);
+        }
+        return kernel;
+    }
+
+    /** Return the number of squares on a side of the boards tilted. */
+    public int size() {
+        return _size;
+    }
+
+    /** Tilt the board in GRID toward SIDE in place. Return the points
+     *  earned by merges, or -1 if no tile moved. */
+    public long tilt(byte[] grid, Side side) {
+        if (grid.length != _scratch.length) {
+            throw new IllegalArgumentException("board must be " + _size
+                                               + "x" + _size);
+        }
+        switch (side) {
+            case NORTH:
+                return tiltLines(grid, true);
+            case SOUTH:
+                return tiltLines(grid, false);
+            default:
+                transpose(grid, _scratch);
+                long score = tiltLines(_scratch, side == Side.EAST);
+                if (score >= 0) {
+                    transpose(_scratch, grid);
+                }
+                return score;
+        }
+    }
+
+    /** Tilt each line (run of _size bytes) of G toward its high end if UP,
+     *  and otherwise toward its low end. Return the points earned, or -1
+     *  if no tile moved. */
+    private long tiltLines(byte[] g, boolean up) {
+        long score = 0;
+        boolean moved = false;
+        for (int start = 0; start < g.length; start += _size) {
+            long points = up ? tiltUp(g, start) : tiltDown(g, start);
+            if (points >= 0) {
+                score += points;
+                moved = true;
+            }
+        }
+        return moved ? score : -1;
+    }
+
+    /** Tilt the line of G starting at START toward START. Return the
+     *  points earned, or -1 if no tile moved. */
+    private long tiltDown(byte[] g, int start) {
+        int end = start + _size;
+        int w = start;
+        boolean mergeable = false, moved = false;
+        long score = 0;
+        for (int p = start; p < end; p += 8) {
+            long word = p + 8 <= end ? (long) WORDS.get(g, p)
+                : word(g, p, start, end);
+            for (long mask = (word + LOW_SEVEN_BITS) & HIGH_BITS; mask != 0;
+                 mask &= mask - 1) {
+                int i = p + (Long.numberOfTrailingZeros(mask) >>> 3);
+                int e = g[i];
+                g[i] = 0;
+                if (mergeable && g[w - 1] == e && e < Board.MAX_EXPONENT) {
+                    g[w - 1] = (byte) (e + 1);
+                    score += 1L << (e + 1);
+                    mergeable = false;
+                    moved = true;
+                } else {
+                    g[w] = (byte) e;
+                    moved |= w != i;
+                    mergeable = true;
+                    w += 1;
+                }
+            }
+        }
+        return moved ? score : -1;
+    }
+
+    /** Tilt the line of G starting at START toward its other end. Return
+     *  the points earned, or -1 if no tile moved. */
+    private long tiltUp(byte[] g, int start) {
+        int end = start + _size;
+        int w = end - 1;
+        boolean mergeable = false, moved = false;
+        long score = 0;
+        for (int p = end - 8; p + 8 > start; p -= 8) {
+            long word = p >= start ? (long) WORDS.get(g, p)
+                : word(g, p, start, end);
+            for (long mask = (word + LOW_SEVEN_BITS) & HIGH_BITS; mask != 0;
+                 mask ^= Long.highestOneBit(mask)) {
+                int i = p + 7 - (Long.numberOfLeadingZeros(mask) >>> 3);
+                int e = g[i];
+                g[i] = 0;
+                if (mergeable && g[w + 1] == e && e < Board.MAX_EXPONENT) {
+                    g[w + 1] = (byte) (e + 1);
+                    score += 1L << (e + 1);
+                    mergeable = false;
+                    moved = true;
+                } else {
+                    g[w] = (byte) e;
+                    moved |= w != i;
+                    mergeable = true;
+                    w -= 1;
+                }
+            }
+        }
+        return moved ? score : -1;
+    }
+
+    /** Return the bytes of G at P .. P + 7 as a little-endian long, with
+     *  those outside START .. END - 1 taken as 0. */
+    private static long word(byte[] g, int p, int start, int end) {
+        long word = 0;
+        for (int i = Math.max(p, start); i < Math.min(p + 8, end); i += 1) {
+            word |= (long) g[i] << (8 * (i - p));
+        }
+        return word;
+    }
+
+    /** Store the transpose of the board in SRC into DEST, so that byte
+     *  x * _size + y of SRC is byte y * _size + x of DEST. */
+    private void transpose(byte[] src, byte[] dest) {
+        int n = _size;
+        if (n % 8 != 0) {
+            for (int x = 0; x < n; x += 1) {
+                for (int y = 0; y < n; y += 1) {
+                    dest[y * n + x] = src[x * n + y];
+                }
+            }
+            return;
+        }
+        for (int bx = 0; bx < n; bx += 8) {
+            for (int by = 0; by < n; by += 8) {
+                int s = bx * n + by;
+                long r0 = (long) WORDS.get(src, s),
+                    r1 = (long) WORDS.get(src, s + n),
+                    r2 = (long) WORDS.get(src, s + 2 * n),
+                    r3 = (long) WORDS.get(src, s + 3 * n),
+                    r4 = (long) WORDS.get(src, s + 4 * n),
+                    r5 = (long) WORDS.get(src, s + 5 * n),
+                    r6 = (long) WORDS.get(src, s + 6 * n),
+                    r7 = (long) WORDS.get(src, s + 7 * n);
+                long t;
+                // Exchange the off-diagonal 4x4, then 2x2, then 1x1
+                // blocks of the 8x8 block of bytes in r0 .. r7.
+                t = ((r0 >>> 32) ^ r4) & MASK32; r0 ^= t << 32; r4 ^= t;
+                t = ((r1 >>> 32) ^ r5) & MASK32; r1 ^= t << 32; r5 ^= t;
+                t = ((r2 >>> 32) ^ r6) & MASK32; r2 ^= t << 32; r6 ^= t;
+                t = ((r3 >>> 32) ^ r7) & MASK32; r3 ^= t << 32; r7 ^= t;
+                t = ((r0 >>> 16) ^ r2) & MASK16; r0 ^= t << 16; r2 ^= t;
+                t = ((r1 >>> 16) ^ r3) & MASK16; r1 ^= t << 16; r3 ^= t;
+                t = ((r4 >>> 16) ^ r6) & MASK16; r4 ^= t << 16; r6 ^= t;
+                t = ((r5 >>> 16) ^ r7) & MASK16; r5 ^= t << 16; r7 ^= t;
+                t = ((r0 >>> 8) ^ r1) & MASK8; r0 ^= t << 8; r1 ^= t;
+                t = ((r2 >>> 8) ^ r3) & MASK8; r2 ^= t << 8; r3 ^= t;
+                t = ((r4 >>> 8) ^ r5) & MASK8; r4 ^= t << 8; r5 ^= t;
+                t = ((r6 >>> 8) ^ r7) & MASK8; r6 ^= t << 8; r7 ^= t;
+                int d = by * n + bx;
+                WORDS.set(dest, d, r0);
+                WORDS.set(dest, d + n, r1);
+                WORDS.set(dest, d + 2 * n, r2);
+                WORDS.set(dest, d + 3 * n, r3);
+                WORDS.set(dest, d + 4 * n, r4);
+                WORDS.set(dest, d + 5 * n, r5);
+                WORDS.set(dest, d + 6 * n, r6);
+                WORDS.set(dest, d + 7 * n, r7);
+            }
+        }
+    }
+
+    /** The tilt of each thread, for the size of board it last tilted. */
+    private static final ThreadLocal<LineTilt> PER_THREAD =
+        new ThreadLocal<>();
+
+    /** Access to a byte array eight bytes at a time, little-endian. */
+    private static final VarHandle WORDS =
+        MethodHandles.byteArrayViewVarHandle(long[].class,
+                                             ByteOrder.LITTLE_ENDIAN);
+
+    /** Adding this to a word of exponents (each at most 127) sets the high
+     *  bit of exactly the nonzero bytes, without carries between bytes. */
+    private static final long LOW_SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+    /** The high bit of each byte. */
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    /** Masks of the low half of each 64-, 32- and 16-bit field. */
+    private static final long MASK32 = 0x00000000FFFFFFFFL,
+        MASK16 = 0x0000FFFF0000FFFFL, MASK8 = 0x00FF00FF00FF00FFL;
+
+    /** Number of squares on a side of the boards tilted. */
+    private final int _size;
+    /** Transposed board for EAST and WEST tilts. */
+    private final byte[] _scratch;
+}
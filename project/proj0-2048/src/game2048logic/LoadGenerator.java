@@ -0,0 +1,178 @@
+package game2048logic;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/** Plays many sessions at once against a GameServer on the loopback
+ *  address, and reports how many moves per second the server sustained
+ *  and how long it took to answer them. Each client sends random tilts
+ *  in batches of a given depth, waits for all their replies, and starts
+ *  a new game whenever one ends.
+ *
+ *  Usage: java game2048logic.LoadGenerator [CLIENTS [MOVES [DEPTH
+ *  [PORT]]]], where MOVES is the number of moves each client makes, and
+ *  DEPTH the number it sends before reading the replies. Without PORT, a
+ *  server is started in this JVM.
+ */
+public class LoadGenerator {
+
+    /** Make MOVES moves in each of CLIENTS sessions on the server at PORT
+     *  of the loopback address, sending them DEPTH at a time. Return a
+     *  summary of the run. */
+    public static Report run(int port, int clients, int moves, int depth) {
+        ExecutorService executor = GameServer.newSessionExecutor();
+        Report report = new Report();
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> results = new ArrayList<>();
+            for (int k = 0; k < clients; k += 1) {
+                long seed = k + 1;
+                results.add(executor.submit(
+                    () -> play(port, seed, moves, depth, report._latency)));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            report._nanos = System.nanoTime() - start;
+            return report;
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("load generator interrupted");
+        } catch (ExecutionException excp) {
+            throw new IllegalStateException(excp.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /** Play one session on the server at PORT, using SEED for its tiles
+     *  and moves, making MOVES moves DEPTH at a time, and recording the
+     *  time to answer each in LATENCY. */
+    private static void play(int port, long seed, int moves, int depth,
+                             LatencyHistogram latency) {
+        Random random = new Random(seed);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(),
+                                        port)) {
+            socket.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), US_ASCII));
+            Writer out = new OutputStreamWriter(socket.getOutputStream(),
+                                                US_ASCII);
+            StringBuilder batch = new StringBuilder();
+            batch.append("NEW ").append(GameServer.DEFAULT_SIZE).append(' ')
+                .append(seed).append('\n');
+            expect(in, out, batch, "OK");
+            for (int sent = 0; sent < moves; sent += depth) {
+                int n = Math.min(depth, moves - sent);
+                for (int k = 0; k < n; k += 1) {
+                    batch.append(SIDES.charAt(random.nextInt(4))).append('\n');
+                }
+                long start = System.nanoTime();
+                out.append(batch);
+                out.flush();
+                batch.setLength(0);
+                boolean over = false;
+                for (int k = 0; k < n; k += 1) {
+                    String reply = in.readLine();
+                    latency.record(System.nanoTime() - start);
+                    if (reply == null || reply.startsWith("ERROR")) {
+                        throw new IllegalStateException("bad reply: " + reply);
+                    }
+                    over |= reply.endsWith(" 1");
+                }
+                if (over) {
+                    batch.append("NEW\n");
+                    expect(in, out, batch, "OK");
+                }
+            }
+            batch.append("QUIT\n");
+            expect(in, out, batch, "BYE");
+        } catch (IOException excp) {
+            throw new UncheckedIOException(excp);
+        }
+    }
+
+    /** Send the commands in BATCH to OUT, clearing it, and check that
+     *  the next line of IN is REPLY. */
+    private static void expect(BufferedReader in, Writer out,
+                               StringBuilder batch, String reply)
+        throws IOException {
+        out.append(batch);
+        out.flush();
+        batch.setLength(0);
+        String line = in.readLine();
+        if (!reply.equals(line)) {
+            throw new IllegalStateException("expected " + reply + ", got "
+                                            + line);
+        }
+    }
+
+    /** The results of a run. */
+    public static class Report {
+        /** Return the number of moves answered. */
+        public long moves() {
+            return _latency.count();
+        }
+
+        /** Return the number of moves answered per second. */
+        public double movesPerSecond() {
+            return moves() * 1e9 / _nanos;
+        }
+
+        /** Return the times from sending each move to reading its reply,
+         *  in nanoseconds. */
+        public LatencyHistogram latency() {
+            return _latency;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d moves in %.3f s, %.0f moves/s%n"
+                                 + "latency ns: %s%n", moves(), _nanos / 1e9,
+                                 movesPerSecond(), _latency);
+        }
+
+        /** Times to answer each move. */
+        private final LatencyHistogram _latency = new LatencyHistogram();
+        /** Elapsed time of the run, in nanoseconds. */
+        private long _nanos;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int moves = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        GameServer server = null;
+        int port;
+        if (args.length > 3) {
+            port = Integer.parseInt(args[3]);
+        } else {
+            server = new GameServer(0).start();
+            port = server.port();
+        }
+        try {
+            System.out.print(run(port, clients, moves, depth));
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    /** Commands for the four tilts. */
+    private static final String SIDES = "NESW";
+}
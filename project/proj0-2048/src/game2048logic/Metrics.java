@@ -0,0 +1,188 @@
+package game2048logic;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Formatter;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/** Counters and latency histograms for the hot paths of the game: tilts,
+ *  tile moves and merges, end-of-game checks, new tiles and animation
+ *  steps. They are off unless the system property game2048.metrics is
+ *  "true". Every place that records into them first tests ENABLED, a
+ *  compile-time constant for the JIT, so when they are off the tests and
+ *  the recording are compiled away.
+ *
+ *  When on, the metrics are registered as an MXBean (see MetricsMXBean)
+ *  named OBJECT_NAME, and if the system property
+ *  game2048.metrics.dumpMillis is a positive number, a report is printed
+ *  to the standard error at that period.
+ */
+public final class Metrics {
+
+    /** True iff the metrics are recorded. */
+    public static final boolean ENABLED = Boolean.getBoolean("game2048.metrics");
+
+    /** JMX name of the metrics. */
+    public static final String OBJECT_NAME = "game2048:type=Metrics";
+
+    /** Times of Model.tiltWrapper, in nanoseconds. */
+    public static final LatencyHistogram TILT_NANOS = new LatencyHistogram();
+    /** Times of BoardWidget.step, which advances an animation by one tick
+     *  and marks the cells that change, in nanoseconds. The painting of
+     *  those cells, which Swing does later, is not included. */
+    public static final LatencyHistogram STEP_NANOS = new LatencyHistogram();
+    /** Tiles moved by Board without merging. */
+    public static final LongAdder MOVES = new LongAdder();
+    /** Merges made by Board. */
+    public static final LongAdder MERGES = new LongAdder();
+    /** Calls of Model.gameOver. */
+    public static final LongAdder GAME_OVER_CHECKS = new LongAdder();
+    /** New tiles placed by Game. TileSpawner picks an empty square in
+     *  one step, so there are no retries to count. */
+    public static final LongAdder NEW_TILES = new LongAdder();
+
+    static {
+        if (ENABLED) {
+            register();
+            long period = Long.getLong("game2048.metrics.dumpMillis", 0);
+            if (period > 0) {
+                startDump(System.err, period);
+            }
+        }
+    }
+
+    /** Not instantiable. */
+    private Metrics() {
+    }
+
+    /** Return a text report of all the metrics. */
+    public static String report() {
+        Formatter out = new Formatter();
+        out.format("tiltWrapper ns: %s%n", TILT_NANOS);
+        out.format("board: %d moves, %d merges%n", MOVES.sum(), MERGES.sum());
+        out.format("gameOver checks: %d, new tiles: %d%n",
+                   GAME_OVER_CHECKS.sum(), NEW_TILES.sum());
+        out.format("animation step ns: %s%n", STEP_NANOS);
+        return out.toString();
+    }
+
+    /** Reset all the metrics to zero. */
+    public static void reset() {
+        TILT_NANOS.reset();
+        STEP_NANOS.reset();
+        MOVES.reset();
+        MERGES.reset();
+        GAME_OVER_CHECKS.reset();
+        NEW_TILES.reset();
+    }
+
+    /** Print report() to OUT every PERIODMILLIS milliseconds, from a
+     *  daemon thread, until the program ends. Return the executor doing
+     *  so, which may be shut down to stop it. */
+    public static ScheduledExecutorService startDump(PrintStream out,
+                                                     long periodMillis) {
+        ScheduledExecutorService dumper =
+            Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "metrics-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+        dumper.scheduleAtFixedRate(() -> out.print(report()), periodMillis,
+                                   periodMillis, TimeUnit.MILLISECONDS);
+        return dumper;
+    }
+
+    /** Register the metrics with the platform MBean server. */
+    private static void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                .registerMBean(new Bean(), new ObjectName(OBJECT_NAME));
+        } catch (JMException excp) {
+            throw new IllegalStateException("cannot register metrics: "
+                                            + excp.getMessage());
+        }
+    }
+
+    /** The view of the metrics given to JMX. */
+    private static class Bean implements MetricsMXBean {
+        @Override
+        public long getTilts() {
+            return TILT_NANOS.count();
+        }
+
+        @Override
+        public double getTiltMeanNanos() {
+            return TILT_NANOS.mean();
+        }
+
+        @Override
+        public long getTiltP50Nanos() {
+            return TILT_NANOS.percentile(0.5);
+        }
+
+        @Override
+        public long getTiltP99Nanos() {
+            return TILT_NANOS.percentile(0.99);
+        }
+
+        @Override
+        public long getTiltMaxNanos() {
+            return TILT_NANOS.max();
+        }
+
+        @Override
+        public long getMoves() {
+            return MOVES.sum();
+        }
+
+        @Override
+        public long getMerges() {
+            return MERGES.sum();
+        }
+
+        @Override
+        public long getGameOverChecks() {
+            return GAME_OVER_CHECKS.sum();
+        }
+
+        @Override
+        public long getNewTiles() {
+            return NEW_TILES.sum();
+        }
+
+        @Override
+        public long getAnimationSteps() {
+            return STEP_NANOS.count();
+        }
+
+        @Override
+        public long getStepP50Nanos() {
+            return STEP_NANOS.percentile(0.5);
+        }
+
+        @Override
+        public long getStepP99Nanos() {
+            return STEP_NANOS.percentile(0.99);
+        }
+
+        @Override
+        public long getStepMaxNanos() {
+            return STEP_NANOS.max();
+        }
+
+        @Override
+        public String getReport() {
+            return report();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package game2048logic;
+
+/** The counters and latency histograms of Metrics, as seen through JMX
+ *  under the name Metrics.OBJECT_NAME. Times are in nanoseconds. */
+public interface MetricsMXBean {
+
+    /** Return the number of calls of Model.tiltWrapper. */
+    long getTilts();
+
+    /** Return the mean time of a call of Model.tiltWrapper. */
+    double getTiltMeanNanos();
+
+    /** Return the median time of a call of Model.tiltWrapper. */
+    long getTiltP50Nanos();
+
+    /** Return the 99th percentile time of a call of Model.tiltWrapper. */
+    long getTiltP99Nanos();
+
+    /** Return the longest time of a call of Model.tiltWrapper. */
+    long getTiltMaxNanos();
+
+    /** Return the number of tiles moved without merging by Board. */
+    long getMoves();
+
+    /** Return the number of merges made by Board. */
+    long getMerges();
+
+    /** Return the number of calls of Model.gameOver. */
+    long getGameOverChecks();
+
+    /** Return the number of new tiles placed by Game. */
+    long getNewTiles();
+
+    /** Return the number of animation steps taken by BoardWidget. */
+    long getAnimationSteps();
+
+    /** Return the median time of an animation step, not counting the
+     *  painting that follows it. */
+    long getStepP50Nanos();
+
+    /** Return the 99th percentile time of an animation step, not counting
+     *  the painting that follows it. */
+    long getStepP99Nanos();
+
+    /** Return the longest time of an animation step, not counting the
+     *  painting that follows it. */
+    long getStepMaxNanos();
+
+    /** Return a text report of all the metrics. */
+    String getReport();
+
+    /** Reset all the metrics to zero. */
+    void reset();
+}
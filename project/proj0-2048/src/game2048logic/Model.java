@@ -4,7 +4,12 @@ import game2048rendering.Board;
 import game2048rendering.Side;
 import game2048rendering.Tile;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Formatter;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 
 /** The state of a game of 2048.
@@ -14,34 +19,97 @@ public class Model {
     /** Current contents of the board. */
     private final Board board;
     /** Current score. */
-    private int score;
+    private long score;
+    /** Value of the tile that wins the game. */
+    private final long maxPiece;
+    /** Earlier and undone positions, or null if none are kept. */
+    private UndoHistory history;
+    /** True iff large boards are tilted on several threads. */
+    private boolean parallel;
+    /** What the last tilt did, returned by every tilt. */
+    private final TiltResult lastTilt;
 
     /* Coordinate System: column x, row y of the board (where x = 0,
      * y = 0 is the lower-left corner of the board) will correspond
      * to board.tile(x, y).  Be careful!
      */
 
-    /** Largest piece value. */
+    /** Largest piece value, unless another is given. */
     public static final int MAX_PIECE = 2048;
 
+    /** Smallest board size for which setParallel(true) has an effect.
+     *  Smaller boards tilt faster on one thread. */
+    public static final int PARALLEL_MIN_SIZE = 128;
+
+    /** Largest number of columns tilted by one thread at a time in a
+     *  parallel tilt. */
+    private static final int COLUMNS_PER_TASK = 16;
+
+    /** LEGAL_MOVES[m] lists the sides whose bits are set in the mask M
+     *  returned by Board.tiltableSides, in order of ordinal. */
+    private static final List<List<Side>> LEGAL_MOVES = new ArrayList<>();
+
+    static {
+        for (int mask = 0; mask < 1 << Side.values().length; mask += 1) {
+            List<Side> sides = new ArrayList<>();
+            for (Side side : Side.values()) {
+                if ((mask & (1 << side.ordinal())) != 0) {
+                    sides.add(side);
+                }
+            }
+            LEGAL_MOVES.add(Collections.unmodifiableList(sides));
+        }
+    }
+
     /** A new 2048 game on a board of size SIZE with no pieces
      *  and score 0. */
     public Model(int size) {
+        this(size, MAX_PIECE);
+    }
+
+    /** A new game on a board of size SIZE with no pieces and score 0,
+     *  which is won by making a tile with value MAXPIECE, a power of 2
+     *  no larger than 2^Board.MAX_EXPONENT. */
+    public Model(int size, long maxPiece) {
         board = new Board(size);
         score = 0;
+        this.maxPiece = checkMaxPiece(maxPiece);
+        lastTilt = new TiltResult(board);
     }
 
     /** A new 2048 game where RAWVALUES contain the values of the tiles
      * (0 if null). VALUES is indexed by (x, y) with (0, 0) corresponding
      * to the bottom-left corner. Used for testing purposes. */
-    public Model(int[][] rawValues, int score) {
+    public Model(int[][] rawValues, long score) {
+        this(rawValues, score, MAX_PIECE);
+    }
+
+    /** A new game where RAWVALUES contain the values of the tiles, as
+     *  for Model(int[][], long), with score SCORE, which is won by making
+     *  a tile with value MAXPIECE, a power of 2 no larger than
+     *  2^Board.MAX_EXPONENT. */
+    public Model(int[][] rawValues, long score, long maxPiece) {
         board = new Board(rawValues);
         this.score = score;
+        this.maxPiece = checkMaxPiece(maxPiece);
+        lastTilt = new TiltResult(board);
+    }
+
+    /** Return MAXPIECE if it is a valid winning tile value. */
+    private static long checkMaxPiece(long maxPiece) {
+        if (maxPiece < 2 || Long.bitCount(maxPiece) != 1
+            || Long.numberOfTrailingZeros(maxPiece) > Board.MAX_EXPONENT) {
+            throw new IllegalArgumentException(
+                "winning tile must be a power of 2: " + maxPiece);
+        }
+        return maxPiece;
     }
 
     /** Return the current Tile at (x, y), where 0 <= x < size(),
      *  0 <= y < size(). Returns null if there is no tile there.
-     *  Used for testing. */
+     *  Used for testing and display; unless a widget is attached to the
+     *  board, each call creates a new Tile, so the game logic itself
+     *  reads values through the board instead. */
     public Tile tile(int x, int y) {
         return board.tile(x, y);
     }
@@ -52,15 +120,78 @@ public class Model {
     }
 
     /** Return the current score. */
-    public int score() {
+    public long score() {
         return score;
     }
 
+    /** Set the current score to SCORE, as when rebuilding a recorded
+     *  game. */
+    void setScore(long score) {
+        this.score = score;
+    }
 
-    /** Clear the board to empty and reset the score. */
+    /** Return the value of the tile that wins the game. */
+    public long maxPiece() {
+        return maxPiece;
+    }
+
+
+    /** Clear the board to empty and reset the score. Forgets all
+     *  positions kept for undo. */
     public void clear() {
         score = 0;
         board.clear();
+        if (history != null) {
+            history.reset();
+        }
+    }
+
+    /** Keep up to LIMIT positions before the current one, so that as many
+     *  tilts can be undone. A LIMIT of 0, the default, keeps none, and
+     *  tilts then pay nothing for undo. Forgets all positions kept so
+     *  far. */
+    public void setUndoLimit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("negative undo limit: "
+                                               + limit);
+        }
+        history = limit == 0 ? null : new UndoHistory(size() * size(), limit);
+    }
+
+    /** Return the number of tilts that undo can take back. */
+    public int undoCount() {
+        return history == null ? 0 : history.undoCount();
+    }
+
+    /** Return the number of undone tilts that redo can replay. */
+    public int redoCount() {
+        return history == null ? 0 : history.redoCount();
+    }
+
+    /** Restore the board and score to what they were before the last tilt
+     *  that changed the board and that has not been undone. Tiles added
+     *  after that tilt are removed as well. Return false, doing nothing,
+     *  if there is no such tilt. */
+    public boolean undo() {
+        return step(-1, undoCount());
+    }
+
+    /** Restore the board and score to what they were before the last
+     *  undo, unless a tilt has changed the board since. Return false,
+     *  doing nothing, if there is nothing to redo. */
+    public boolean redo() {
+        return step(1, redoCount());
+    }
+
+    /** Step DELTA positions through the history, if AVAILABLE > 0.
+     *  Return true iff that was done. */
+    private boolean step(int delta, int available) {
+        if (available == 0) {
+            return false;
+        }
+        history.save(board, score);
+        score = history.step(board, delta);
+        return true;
     }
 
     /** Add TILE to the board. There must be no Tile currently at the
@@ -70,8 +201,11 @@ public class Model {
     }
 
     /** Return true iff the game is over (there are no moves, or
-     *  there is a tile with value 2048 on the board). */
+     *  there is a tile with value maxPiece() on the board). */
     public boolean gameOver() {
+        if (Metrics.ENABLED) {
+            Metrics.GAME_OVER_CHECKS.increment();
+        }
         return maxTileExists() || !atLeastOneMoveExists();
     }
 
@@ -84,34 +218,17 @@ public class Model {
      *  Empty spaces are stored as null.
      * */
     public boolean emptySpaceExists() {
-        for (int y = 0; y < size(); y++) {
-            for (int x = 0; x < size(); x++) {
-                if (tile(x, y) == null) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return board.emptyCount() > 0;
     }
 
     /**
      * Returns true if any tile is equal to the maximum valid value.
-     * Maximum valid value is given by this.MAX_PIECE. Note that
-     * given a Tile object t, we get its value with t.value().
+     * Maximum valid value is given by maxPiece() (MAX_PIECE unless
+     * another was given). The board keeps count of its tiles of each
+     * value, so this takes constant time.
      */
     public boolean maxTileExists() {
-        for (int y = 0; y < size(); y++) {
-            for (int x = 0; x < size(); x++) {
-                if (tile(x, y) == null) {
-                    continue;
-                }
-
-                if (tile(x, y).value() == MAX_PIECE) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return board.tileCount(maxPiece) > 0;
     }
 
     /**
@@ -119,23 +236,10 @@ public class Model {
      * There are two ways that there can be valid moves:
      * 1. There is at least one empty space on the board.
      * 2. There are two adjacent tiles with the same value.
+     * The board tracks both as tiles move, so this takes constant time.
      */
     public boolean atLeastOneMoveExists() {
-        if (emptySpaceExists()) {
-            return true;
-        }
-
-        for (int y = 0; y < size(); y++) {
-            for (int x = 0; x < size(); x++) {
-                if (x < size() - 1 && tile(x, y).value() == tile(x + 1, y).value()) {
-                    return true;
-                }
-                if (y < size() - 1 && tile(x, y).value() == tile(x, y + 1).value()) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return emptySpaceExists() || board.hasEqualNeighbors();
     }
 
     /**
@@ -151,29 +255,50 @@ public class Model {
      * 3. When three adjacent tiles in the direction of motion have the same
      *    value, then the leading two tiles in the direction of motion merge,
      *    and the trailing tile does not.
+     * 4. Tiles of value 2^Board.MAX_EXPONENT do not merge, since the
+     *    result would be too large.
      */
     public void moveTileUpAsFarAsPossible(int x, int y) {
-        Tile currTile = board.tile(x, y);
+        score += moveUp(x, y, null);
+    }
 
-        if (y == size() - 1) {
-            return;
+    /** Moves the tile at (x, y) as far up as possible, as for
+     *  moveTileUpAsFarAsPossible, recording the move in BATCH if it is
+     *  not null (see Board.move). Returns the points earned. */
+    private long moveUp(int x, int y, Board.MoveBatch batch) {
+        int exponent = board.exponent(x, y);
+
+        if (exponent == 0 || y == size() - 1) {
+            return 0;
         }
 
         int targetY = y + 1;
-        while (targetY < size() && tile(x, targetY) == null) {
+        while (targetY < size() && board.exponent(x, targetY) == 0) {
             targetY++;
         }
 
         targetY--;
 
         if (targetY >= 0 && targetY < size() - 1
-                && tile(x, targetY + 1) != null
-                && tile(x, targetY + 1).value() == currTile.value()
-                && !tile(x, targetY + 1).wasMerged()) {
-            board.move(x, targetY + 1, currTile);
-            score += 2 * currTile.value();
+                && exponent < Board.MAX_EXPONENT
+                && board.exponent(x, targetY + 1) == exponent
+                && !board.wasMerged(x, targetY + 1)) {
+            move(x, targetY + 1, x, y, batch);
+            return 1L << (exponent + 1);
         } else if (targetY != y) {
-            board.move(x, targetY, currTile);
+            move(x, targetY, x, y, batch);
+        }
+        return 0;
+    }
+
+    /** Moves the tile at (FROMX, FROMY) to (x, y) on the board, recording
+     *  the move in BATCH if it is not null. */
+    private void move(int x, int y, int fromX, int fromY,
+                      Board.MoveBatch batch) {
+        if (batch == null) {
+            board.move(x, y, fromX, fromY);
+        } else {
+            board.move(x, y, fromX, fromY, batch);
         }
     }
 
@@ -183,26 +308,163 @@ public class Model {
      * so we are tilting the tiles in this column up.
      * */
     public void tiltColumn(int x) {
+        score += tiltColumn(x, null);
+    }
+
+    /** Tilts column X up as for tiltColumn(X), recording the moves in
+     *  BATCH if it is not null. Returns the points earned. */
+    private long tiltColumn(int x, Board.MoveBatch batch) {
+        long points = 0;
         for (int y = size() - 2; y >= 0; y--) {
-            if (tile(x, y) != null) {
-                moveTileUpAsFarAsPossible(x, y);
+            if (board.exponent(x, y) != 0) {
+                points += moveUp(x, y, batch);
             }
         }
+        return points;
     }
 
-    public void tilt(Side side) {
+    /** Tilts every column of the board toward SIDE, and returns what
+     *  moved. The result is the same object on every call, and describes
+     *  the latest tilt only until this model next changes. */
+    public TiltResult tilt(Side side) {
+        long scoreBefore = score;
+        if (history != null) {
+            history.save(board, score);
+        }
+        board.clearMoveLog();
         board.setViewingPerspective(side);
-        for (int x = 0; x < size(); x++) {
-            tiltColumn(x);
+        if (parallel && size() >= PARALLEL_MIN_SIZE && !board.animated()) {
+            ColumnTask task = new ColumnTask(0, size(),
+                new Board.MoveBatch[size()], new long[size()]);
+            ForkJoinPool.commonPool().invoke(task);
+            board.applyBatches(task.batches);
+            for (long points : task.points) {
+                score += points;
+            }
+        } else {
+            for (int x = 0; x < size(); x++) {
+                tiltColumn(x);
+            }
         }
         board.setViewingPerspective(Side.NORTH);
+        if (history != null && board.moveLogSize() > 0) {
+            history.advance();
+        }
+        return lastTilt.set(score - scoreBefore);
+    }
+
+    /** Return the sides toward which a tilt would change the board, in
+     *  order of ordinal, without changing anything. The list is shared
+     *  and unmodifiable, so this allocates nothing. */
+    public List<Side> legalMoves() {
+        return LEGAL_MOVES.get(board.tiltableSides());
     }
 
-    /** Tilts every column of the board toward SIDE.
+    /** Return a new model with the same tiles, score and winning tile as
+     *  this one, sharing nothing with it. The copy keeps no positions for
+     *  undo, is not animated and tilts on one thread. */
+    public Model copy() {
+        Model result = new Model(size(), maxPiece);
+        byte[] exponents = new byte[size() * size()];
+        board.saveExponents(exponents, 0);
+        result.board.restoreExponents(exponents, 0);
+        result.score = score;
+        return result;
+    }
+
+    /** Return a new model, with the same winning tile, holding the board
+     *  and score that would result from tilting this one toward SIDE, or
+     *  null if that tilt would not change the board. This model is not
+     *  changed. */
+    public Model successor(Side side) {
+        byte[] exponents = new byte[size() * size()];
+        long points = successor(side, exponents);
+        if (points < 0) {
+            return null;
+        }
+        Model next = new Model(size(), maxPiece);
+        next.board.restoreExponents(exponents, 0);
+        next.score = score + points;
+        return next;
+    }
+
+    /** Store in DEST the board that would result from tilting this one
+     *  toward SIDE, packed as by Board.saveExponents, and return the
+     *  points that tilt would earn, or -1 if it would not change the
+     *  board. This model is not changed, so several threads may expand
+     *  the same model at once, as long as none changes it; each uses a
+     *  LineTilt of its own. Apart from the first call on each thread,
+     *  this allocates nothing, so a search can expand positions held in
+     *  its own arrays (see LineTilt) without creating Models. */
+    public long successor(Side side, byte[] dest) {
+        board.saveExponents(dest, 0);
+        return LineTilt.forThread(size()).tilt(dest, side);
+    }
+
+    /** Tilt columns on several threads iff PARALLEL, for boards of at
+     *  least PARALLEL_MIN_SIZE squares on a side that are not being
+     *  animated. The results, including the order of the move log and the
+     *  numbering of the empty squares, are the same either way. */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /** Tilts a range of the columns of the board, now viewed from the
+     *  side being tilted toward, splitting it among threads. Each group of
+     *  at most COLUMNS_PER_TASK columns records its moves in its own
+     *  batch and its points in its own partial sum, each stored at the
+     *  index of the group's first column, so that no two threads write
+     *  the same field. */
+    private class ColumnTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /** A task tilting columns LO .. HI - 1, storing the moves and
+         *  points of each group in BATCHES and POINTS. */
+        ColumnTask(int lo, int hi, Board.MoveBatch[] batches, long[] points) {
+            this.lo = lo;
+            this.hi = hi;
+            this.batches = batches;
+            this.points = points;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= COLUMNS_PER_TASK) {
+                Board.MoveBatch batch = new Board.MoveBatch();
+                long sum = 0;
+                for (int x = lo; x < hi; x += 1) {
+                    sum += tiltColumn(x, batch);
+                }
+                batches[lo] = batch;
+                points[lo] = sum;
+            } else {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new ColumnTask(lo, mid, batches, points),
+                          new ColumnTask(mid, hi, batches, points));
+            }
+        }
+
+        /** The range of columns tilted. */
+        private final int lo, hi;
+        /** Moves of each group of columns, by first column. */
+        private final Board.MoveBatch[] batches;
+        /** Points earned in each group of columns, by first column. */
+        private final long[] points;
+    }
+
+    /** Tilts every column of the board toward SIDE, and returns what
+     *  moved, as for tilt.
      */
-    public void tiltWrapper(Side side) {
+    public TiltResult tiltWrapper(Side side) {
+        if (Metrics.ENABLED) {
+            long start = System.nanoTime();
+            board.resetMerged();
+            TiltResult result = tilt(side);
+            Metrics.TILT_NANOS.record(System.nanoTime() - start);
+            return result;
+        }
         board.resetMerged();
-        tilt(side);
+        return tilt(side);
     }
 
 
@@ -212,10 +474,10 @@ public class Model {
         out.format("%n[%n");
         for (int y = size() - 1; y >= 0; y -= 1) {
             for (int x = 0; x < size(); x += 1) {
-                if (tile(x, y) == null) {
+                if (board.exponent(x, y) == 0) {
                     out.format("|    ");
                 } else {
-                    out.format("|%4d", tile(x, y).value());
+                    out.format("|%4d", 1L << board.exponent(x, y));
                 }
             }
             out.format("|%n");
@@ -227,11 +489,12 @@ public class Model {
 
     @Override
     public boolean equals(Object o) {
-        return (o instanceof Model m) && this.toString().equals(m.toString());
+        return (o instanceof Model m) && score == m.score
+            && maxPiece == m.maxPiece && board.equals(m.board);
     }
 
     @Override
     public int hashCode() {
-        return toString().hashCode();
+        return board.hashCode() * 31 + Long.hashCode(score);
     }
 }
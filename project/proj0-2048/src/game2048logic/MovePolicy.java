@@ -0,0 +1,11 @@
+package game2048logic;
+
+import game2048rendering.Side;
+
+/** A strategy for choosing moves in a game of 2048. */
+public interface MovePolicy {
+
+    /** Return the side toward which to tilt MODEL next, or null to give
+     *  up. Must not modify MODEL. */
+    Side bestMove(Model model);
+}
@@ -0,0 +1,201 @@
+package game2048logic;
+
+import game2048rendering.Board;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/** Reads positions of 2048 from a file written by PositionWriter, in
+ *  order or by number, into existing Models. The file is mapped into
+ *  memory a window of up to WINDOW_SIZE bytes (a whole number of records)
+ *  at a time, so files of any length can be read, and reading a position
+ *  allocates nothing: it is unpacked into a scratch array and restored to
+ *  the model's board through Board.restoreExponents.
+ */
+public class PositionReader implements Closeable {
+
+    /** Largest number of bytes of the file mapped at once. */
+    static final long WINDOW_SIZE = 1L << 30;
+
+    /** A reader of the positions in FILE. */
+    public PositionReader(Path file) throws IOException {
+        this(file, WINDOW_SIZE);
+    }
+
+    /** A reader of the positions in FILE that maps at most WINDOWSIZE
+     *  bytes of records at a time. */
+    PositionReader(Path file, long windowSize) throws IOException {
+        _channel = FileChannel.open(file, READ);
+        try {
+            MappedByteBuffer header =
+                _channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                             Math.min(_channel.size(),
+                                      PositionWriter.HEADER_SIZE));
+            if (header.remaining() < PositionWriter.HEADER_SIZE
+                || header.getInt() != PositionWriter.MAGIC
+                || header.get() != PositionWriter.VERSION) {
+                throw new IllegalArgumentException("not a position file: "
+                                                   + file);
+            }
+            _size = header.getInt();
+            _bitsPerSquare = header.get();
+            if (_size <= 0 || _bitsPerSquare != 4 && _bitsPerSquare != 8) {
+                throw new IllegalArgumentException("bad position file"
+                                                   + " header: " + file);
+            }
+            _recordSize = PositionWriter.recordSize(_size, _bitsPerSquare);
+            _count = (_channel.size() - PositionWriter.HEADER_SIZE)
+                / _recordSize;
+            _recordsPerWindow = Math.max(1, windowSize / _recordSize);
+            _exponents = new byte[_size * _size];
+            _record = new byte[_recordSize - Long.BYTES];
+        } catch (IOException | RuntimeException excp) {
+            _channel.close();
+            throw excp;
+        }
+    }
+
+    /** Return the number of squares on a side of the boards. */
+    public int size() {
+        return _size;
+    }
+
+    /** Return the number of bits per square in the file, 4 or 8. */
+    public int bitsPerSquare() {
+        return _bitsPerSquare;
+    }
+
+    /** Return the number of positions in the file. */
+    public long count() {
+        return _count;
+    }
+
+    /** Set MODEL, which must have size(), to the next position in the
+     *  file, starting with the first. Return false, leaving MODEL
+     *  unchanged, if there are no more positions. */
+    public boolean next(Model model) {
+        if (_next >= _count) {
+            return false;
+        }
+        read(_next, model);
+        return true;
+    }
+
+    /** Set MODEL, which must have size(), to position K of the file,
+     *  numbering from 0. The next call to next reads position K + 1.
+     *  Throws IllegalArgumentException, leaving MODEL unchanged, if the
+     *  record holds an exponent above Board.MAX_EXPONENT. */
+    public void read(long k, Model model) {
+        if (k < 0 || k >= _count) {
+            throw new IndexOutOfBoundsException("no position " + k);
+        }
+        if (model.size() != _size) {
+            throw new IllegalArgumentException("board must be " + _size
+                                               + "x" + _size);
+        }
+        long window = k / _recordsPerWindow;
+        if (_window == null || window != _windowNumber) {
+            map(window);
+        }
+        _window.position((int) (k % _recordsPerWindow) * _recordSize);
+        long score = _window.getLong();
+        if (_bitsPerSquare == 8) {
+            _window.get(_exponents);
+        } else {
+            _window.get(_record);
+            unpack(_record, _exponents);
+        }
+        model.getBoard().restoreExponents(_exponents, 0);
+        model.setScore(score);
+        _next = k + 1;
+    }
+
+    /** Map window number WINDOW of the records. */
+    private void map(long window) {
+        long first = window * _recordsPerWindow;
+        long records = Math.min(_recordsPerWindow, _count - first);
+        try {
+            _window = _channel.map(FileChannel.MapMode.READ_ONLY,
+                                   PositionWriter.HEADER_SIZE
+                                   + first * _recordSize,
+                                   records * _recordSize);
+        } catch (IOException excp) {
+            throw new UncheckedIOException(excp);
+        }
+        _windowNumber = window;
+    }
+
+    /** Unpack the nibbles in NIBBLES into EXPONENTS. */
+    private static void unpack(byte[] nibbles, byte[] exponents) {
+        int n = exponents.length;
+        for (int s = 0; s + 1 < n; s += 2) {
+            int b = nibbles[s >> 1];
+            exponents[s] = (byte) (b & 0xF);
+            exponents[s + 1] = (byte) (b >> 4 & 0xF);
+        }
+        if (n % 2 == 1) {
+            exponents[n - 1] = (byte) (nibbles[n >> 1] & 0xF);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        _window = null;
+        _channel.close();
+    }
+
+    /** Return a new Model holding the position in LINE, in the text form
+     *  written by PositionWriter.toText. */
+    public static Model fromText(String line) {
+        String[] fields = line.trim().split(" +");
+        if (fields.length != 3) {
+            throw new IllegalArgumentException("bad position: " + line);
+        }
+        int size = Integer.parseInt(fields[0]);
+        String digits = fields[2];
+        if (size <= 0 || digits.length() != 2 * size * size) {
+            throw new IllegalArgumentException("bad position: " + line);
+        }
+        byte[] exponents = new byte[size * size];
+        for (int s = 0; s < exponents.length; s += 1) {
+            int e = Integer.parseInt(digits, 2 * s, 2 * s + 2, 16);
+            if (e > Board.MAX_EXPONENT) {
+                throw new IllegalArgumentException("bad position: " + line);
+            }
+            exponents[s] = (byte) e;
+        }
+        Model model = new Model(size);
+        model.getBoard().restoreExponents(exponents, 0);
+        model.setScore(Long.parseLong(fields[1]));
+        return model;
+    }
+
+    /** The file being read. */
+    private final FileChannel _channel;
+    /** Number of squares on a side of the boards. */
+    private final int _size;
+    /** Number of bits per square, 4 or 8. */
+    private final int _bitsPerSquare;
+    /** Length of a record, in bytes. */
+    private final int _recordSize;
+    /** Number of positions in the file. */
+    private final long _count;
+    /** Number of records in a full window. */
+    private final long _recordsPerWindow;
+    /** Exponents of the position being read. */
+    private final byte[] _exponents;
+    /** Packed exponents of the position being read. */
+    private final byte[] _record;
+    /** The mapped window of records, or null if none is mapped yet. */
+    private MappedByteBuffer _window;
+    /** Number of the mapped window. */
+    private long _windowNumber;
+    /** Number of the position next read by next. */
+    private long _next;
+}
@@ -0,0 +1,174 @@
+package game2048logic;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/** Writes positions of 2048 to a file in a dense binary format, which
+ *  PositionReader reads back.
+ *
+ *  A position file starts with a header: the int MAGIC, the byte VERSION,
+ *  the board size (int) and the number of bits per square (byte), 4 or 8,
+ *  all big-endian. Then follow the positions, each a record of the same
+ *  length: the score (long) and the exponents of the squares, in the
+ *  order of Board.saveExponents. With 8 bits per square each exponent is
+ *  a byte; with 4, square s is the low nibble of byte s / 2 if s is even
+ *  and the high nibble if it is odd, so a 4x4 position takes 16 bytes.
+ *  Files with 4 bits per square hold tiles up to 2^15 = 32768.
+ *
+ *  Positions also have a one-line text form, written by toText and read
+ *  by PositionReader.fromText: the size, the score and then two hex
+ *  digits per square, in the same order, separated by spaces.
+ */
+public class PositionWriter implements Closeable {
+
+    /** First four bytes of every position file: "204P" in ASCII. */
+    static final int MAGIC = 0x32303450;
+    /** Version of the format. */
+    static final byte VERSION = 1;
+    /** Size of the header, in bytes. */
+    static final int HEADER_SIZE = 4 + 1 + 4 + 1;
+
+    /** Smallest size of the write buffer, in bytes. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** A writer of positions on SIZE x SIZE boards to FILE, replacing any
+     *  previous contents, using BITSPERSQUARE (4 or 8) bits per
+     *  square. */
+    public PositionWriter(Path file, int size, int bitsPerSquare)
+        throws IOException {
+        if (bitsPerSquare != 4 && bitsPerSquare != 8) {
+            throw new IllegalArgumentException("bits per square must be 4"
+                                               + " or 8: " + bitsPerSquare);
+        }
+        _size = size;
+        _nibbles = bitsPerSquare == 4;
+        _exponents = new byte[size * size];
+        _record = new byte[recordSize(size, bitsPerSquare) - Long.BYTES];
+        _buffer = ByteBuffer.allocateDirect(
+            Math.max(BUFFER_SIZE, recordSize(size, bitsPerSquare)));
+        _channel = FileChannel.open(file, WRITE, CREATE, TRUNCATE_EXISTING);
+        _buffer.putInt(MAGIC).put(VERSION).putInt(size)
+            .put((byte) bitsPerSquare);
+    }
+
+    /** Return the length of a record of a position on a SIZE x SIZE board
+     *  with BITSPERSQUARE bits per square, in bytes. */
+    static int recordSize(int size, int bitsPerSquare) {
+        int squares = size * size;
+        return Long.BYTES + (bitsPerSquare == 4 ? (squares + 1) / 2 : squares);
+    }
+
+    /** Return the number of positions written. */
+    public long count() {
+        return _count;
+    }
+
+    /** Append the position and score of MODEL. Throws
+     *  IllegalArgumentException if MODEL has the wrong size, or holds a
+     *  tile too large for 4 bits per square. */
+    public void write(Model model) {
+        if (model.size() != _size) {
+            throw new IllegalArgumentException("board must be " + _size
+                                               + "x" + _size);
+        }
+        model.getBoard().saveExponents(_exponents, 0);
+        byte[] record = _exponents;
+        if (_nibbles) {
+            record = _record;
+            pack(_exponents, record);
+        }
+        if (_buffer.remaining() < Long.BYTES + record.length) {
+            flush();
+        }
+        _buffer.putLong(model.score()).put(record);
+        _count += 1;
+    }
+
+    /** Pack EXPONENTS into NIBBLES, two to a byte. */
+    private static void pack(byte[] exponents, byte[] nibbles) {
+        int n = exponents.length;
+        for (int s = 0; s + 1 < n; s += 2) {
+            int e0 = exponents[s], e1 = exponents[s + 1];
+            if ((e0 | e1) > 0xF) {
+                throw new IllegalArgumentException(
+                    "tile too large for 4 bits per square: 2^"
+                    + Math.max(e0, e1));
+            }
+            nibbles[s >> 1] = (byte) (e0 | e1 << 4);
+        }
+        if (n % 2 == 1) {
+            if (exponents[n - 1] > 0xF) {
+                throw new IllegalArgumentException(
+                    "tile too large for 4 bits per square: 2^"
+                    + exponents[n - 1]);
+            }
+            nibbles[n >> 1] = exponents[n - 1];
+        }
+    }
+
+    /** Write everything appended so far to the file. */
+    public void flush() {
+        _buffer.flip();
+        try {
+            while (_buffer.hasRemaining()) {
+                _channel.write(_buffer);
+            }
+        } catch (IOException excp) {
+            throw new UncheckedIOException(excp);
+        }
+        _buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        _channel.close();
+    }
+
+    /** Return the text form of the position and score of MODEL. */
+    public static String toText(Model model) {
+        int size = model.size();
+        byte[] exponents = new byte[size * size];
+        model.getBoard().saveExponents(exponents, 0);
+        StringBuilder out = new StringBuilder();
+        appendText(out, size, model.score(), exponents);
+        return out.toString();
+    }
+
+    /** Append to OUT the text form of the SIZE x SIZE position packed in
+     *  EXPONENTS, with score SCORE. */
+    static void appendText(StringBuilder out, int size, long score,
+                           byte[] exponents) {
+        out.append(size).append(' ').append(score).append(' ');
+        for (byte e : exponents) {
+            out.append(HEX_DIGITS.charAt(e >> 4))
+                .append(HEX_DIGITS.charAt(e & 0xF));
+        }
+    }
+
+    /** Digits of the text form. */
+    static final String HEX_DIGITS = "0123456789abcdef";
+
+    /** Number of squares on a side of the board. */
+    private final int _size;
+    /** True iff squares take 4 bits rather than 8. */
+    private final boolean _nibbles;
+    /** Exponents of the position being written. */
+    private final byte[] _exponents;
+    /** Packed exponents of the position being written. */
+    private final byte[] _record;
+    /** Positions not yet written. */
+    private final ByteBuffer _buffer;
+    /** The file being written. */
+    private final FileChannel _channel;
+    /** Number of positions written. */
+    private long _count;
+}
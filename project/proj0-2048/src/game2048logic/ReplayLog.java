@@ -0,0 +1,151 @@
+package game2048logic;
+
+import game2048rendering.Side;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/** A compact binary record of a session of 2048, from which ReplayRunner
+ *  can rebuild the board at any move.
+ *
+ *  A log starts with a header: the int MAGIC, the byte VERSION, the board
+ *  size (int), the winning tile value (long), the random seed (long) and
+ *  the probability of a 2 (double), all big-endian. Then follows one
+ *  event per byte, some followed by a square number:
+ *  <ul>
+ *  <li> 0 to 3: a tilt toward Side.values()[code] that changed the board;
+ *  <li> NEW_GAME: the board was cleared and the score reset;
+ *  <li> SCORE, then a score as an unsigned LEB128 varint: the score was
+ *       set to that value;
+ *  <li> TILE + e, then the square (x * size + y) as an unsigned LEB128
+ *       varint: a tile of value 2^e was added there.
+ *  </ul>
+ *  Writes are buffered and reach the file when the buffer fills, at each
+ *  new game, and on flush or close.
+ */
+public class ReplayLog implements Closeable {
+
+    /** First four bytes of every log: "2048" in ASCII. */
+    static final int MAGIC = 0x32303438;
+    /** Version of the format. */
+    static final byte VERSION = 2;
+    /** Event code for a new game. */
+    static final int NEW_GAME = 4;
+    /** Event code for a change of score made other than by a tilt. */
+    static final int SCORE = 5;
+    /** Event code for a tile of value 2^e is TILE + e. */
+    static final int TILE = 64;
+
+    /** Size of the write buffer, in bytes. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** A log written to FILE, replacing any previous contents, of games
+     *  on SIZE x SIZE boards with new tiles that are 2 with probability
+     *  PROBOF2, drawn using SEED, and the winning tile Model.MAX_PIECE. */
+    public ReplayLog(Path file, int size, long seed, double probOf2)
+        throws IOException {
+        this(file, size, Model.MAX_PIECE, seed, probOf2);
+    }
+
+    /** A log as for ReplayLog(FILE, SIZE, SEED, PROBOF2) of games won by
+     *  making a tile of value MAXPIECE. */
+    public ReplayLog(Path file, int size, long maxPiece, long seed,
+                     double probOf2) throws IOException {
+        _channel = FileChannel.open(file, WRITE, CREATE, TRUNCATE_EXISTING);
+        _size = size;
+        _buffer.putInt(MAGIC).put(VERSION).putInt(size).putLong(maxPiece)
+            .putLong(seed).putDouble(probOf2);
+    }
+
+    /** Record that the board was cleared for a new game. */
+    public void newGame() {
+        put(NEW_GAME);
+        flush();
+    }
+
+    /** Record that the board was tilted toward SIDE and changed. */
+    public void tilt(Side side) {
+        put(side.ordinal());
+    }
+
+    /** Record that a tile with value VALUE was added at (X, Y). */
+    public void addTile(long value, int x, int y) {
+        addExponent(Long.numberOfTrailingZeros(value), x * _size + y);
+    }
+
+    /** Record that a tile with value 2^E was added in SQUARE. */
+    private void addExponent(int e, int square) {
+        put(TILE + e);
+        putVarint(square);
+    }
+
+    /** Record the tiles and score of MODEL, from which a game starts, as
+     *  a new game followed by the addition of each tile. */
+    public void position(Model model) {
+        put(NEW_GAME);
+        if (model.score() != 0) {
+            put(SCORE);
+            putVarint(model.score());
+        }
+        for (int x = 0; x < _size; x += 1) {
+            for (int y = 0; y < _size; y += 1) {
+                int e = model.getBoard().exponent(x, y);
+                if (e != 0) {
+                    addExponent(e, x * _size + y);
+                }
+            }
+        }
+        flush();
+    }
+
+    /** Append the nonnegative N to the buffer as a varint. */
+    private void putVarint(long n) {
+        while (n >= 0x80) {
+            put((int) n & 0x7F | 0x80);
+            n >>>= 7;
+        }
+        put((int) n);
+    }
+
+    /** Append the event byte CODE to the buffer. */
+    private void put(int code) {
+        if (!_buffer.hasRemaining()) {
+            flush();
+        }
+        _buffer.put((byte) code);
+    }
+
+    /** Write everything recorded so far to the file. */
+    public void flush() {
+        _buffer.flip();
+        try {
+            while (_buffer.hasRemaining()) {
+                _channel.write(_buffer);
+            }
+        } catch (IOException excp) {
+            throw new UncheckedIOException(excp);
+        }
+        _buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        _channel.close();
+    }
+
+    /** The file being written. */
+    private final FileChannel _channel;
+    /** Events not yet written. */
+    private final ByteBuffer _buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    /** Number of squares on a side of the board. */
+    private final int _size;
+}
@@ -0,0 +1,230 @@
+package game2048logic;
+
+import game2048rendering.Side;
+import game2048rendering.Tile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/** Rebuilds the positions of a session of 2048 recorded by a ReplayLog.
+ *  Moves are numbered from 0 over the whole log, across new games. The
+ *  position after every SNAPSHOT_INTERVAL moves is kept when the log is
+ *  read, so rebuilding any position replays at most that many moves.
+ *
+ *  Usage: java game2048logic.ReplayRunner LOG [MOVE]
+ */
+public class ReplayRunner {
+
+    /** Number of moves between kept positions. */
+    static final int SNAPSHOT_INTERVAL = 256;
+
+    /** A runner for the log in FILE. */
+    public ReplayRunner(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            ByteBuffer log = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                                         channel.size());
+            if (log.remaining() < HEADER_SIZE
+                || log.getInt() != ReplayLog.MAGIC
+                || log.get() != ReplayLog.VERSION) {
+                throw new IllegalArgumentException("not a replay log: " + file);
+            }
+            _size = log.getInt();
+            _maxPiece = log.getLong();
+            _seed = log.getLong();
+            _probOf2 = log.getDouble();
+            _events = new byte[log.remaining()];
+            log.get(_events);
+        }
+        index();
+    }
+
+    /** Return the number of squares on a side of the board. */
+    public int size() {
+        return _size;
+    }
+
+    /** Return the value of the tile that wins the games of the session. */
+    public long maxPiece() {
+        return _maxPiece;
+    }
+
+    /** Return the random seed of the session. */
+    public long seed() {
+        return _seed;
+    }
+
+    /** Return the probability that a new tile was a 2. */
+    public double probOf2() {
+        return _probOf2;
+    }
+
+    /** Return the number of moves in the log. */
+    public int moveCount() {
+        return _moveCount;
+    }
+
+    /** Return the side toward which the board was tilted in move K. */
+    public Side move(int k) {
+        return Side.values()[_events[_moveOffsets[k]]];
+    }
+
+    /** Return a new model holding the position after the first K
+     *  moves, and any tiles added after the last of them, where
+     *  0 <= K <= moveCount(). */
+    public Model modelAt(int k) {
+        if (k < 0 || k > _moveCount) {
+            throw new IllegalArgumentException("no move " + k);
+        }
+        int s = Math.min(k / SNAPSHOT_INTERVAL, _snapshots.size() - 1);
+        Model model;
+        int start;
+        if (s < 0) {
+            model = new Model(_size, _maxPiece);
+            start = 0;
+        } else {
+            Snapshot snapshot = _snapshots.get(s);
+            model = new Model(_size, _maxPiece);
+            model.getBoard().restoreExponents(snapshot._exponents, 0);
+            model.setScore(snapshot._score);
+            start = _moveOffsets[s * SNAPSHOT_INTERVAL];
+        }
+        replay(model, start, k < _moveCount ? _moveOffsets[k] : _events.length);
+        return model;
+    }
+
+    /** Find the moves of the log and keep the positions before every
+     *  SNAPSHOT_INTERVAL of them. */
+    private void index() {
+        int[] offsets = new int[16];
+        int moves = 0;
+        Model model = new Model(_size, _maxPiece);
+        int k = 0;
+        while (k < _events.length) {
+            int code = _events[k];
+            if (code < ReplayLog.NEW_GAME) {
+                if (moves % SNAPSHOT_INTERVAL == 0) {
+                    _snapshots.add(new Snapshot(model));
+                }
+                if (moves == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, 2 * moves);
+                }
+                offsets[moves] = k;
+                moves += 1;
+            }
+            k = apply(model, k);
+        }
+        _moveOffsets = Arrays.copyOf(offsets, moves);
+        _moveCount = moves;
+    }
+
+    /** Apply the events from offset START to offset END of the log to
+     *  MODEL. */
+    private void replay(Model model, int start, int end) {
+        for (int k = start; k < end; k = apply(model, k)) {
+            continue;
+        }
+    }
+
+    /** Apply the event at offset K of the log to MODEL. Return the offset
+     *  of the next event. */
+    private int apply(Model model, int k) {
+        int code = _events[k];
+        k += 1;
+        if (code < ReplayLog.NEW_GAME) {
+            model.tiltWrapper(Side.values()[code]);
+        } else if (code == ReplayLog.NEW_GAME) {
+            model.clear();
+        } else if (code == ReplayLog.SCORE) {
+            k = readVarint(k);
+            model.setScore(_varint);
+        } else if (code > ReplayLog.TILE) {
+            k = readVarint(k);
+            int square = (int) _varint;
+            model.addTile(Tile.ofExponent(code - ReplayLog.TILE,
+                                          square / _size, square % _size));
+        } else {
+            throw new IllegalArgumentException("bad replay event " + code
+                                               + " at offset " + (k - 1));
+        }
+        return k;
+    }
+
+    /** Set _varint to the varint at offset K of the log. Return the offset
+     *  following it. */
+    private int readVarint(int k) {
+        long n = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = _events[k];
+            k += 1;
+            n |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                _varint = n;
+                return k;
+            }
+        }
+    }
+
+    /** A position kept from the log. */
+    private static class Snapshot {
+        /** A copy of the position of MODEL. */
+        Snapshot(Model model) {
+            int size = model.size();
+            _exponents = new byte[size * size];
+            model.getBoard().saveExponents(_exponents, 0);
+            _score = model.score();
+        }
+
+        /** The tiles, packed as by Board.saveExponents. */
+        private final byte[] _exponents;
+        /** The score. */
+        private final long _score;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java game2048logic.ReplayRunner LOG"
+                               + " [MOVE]");
+            System.exit(1);
+        }
+        ReplayRunner runner = new ReplayRunner(Path.of(args[0]));
+        int move = args.length > 1 ? Integer.parseInt(args[1])
+            : runner.moveCount();
+        System.out.printf("%dx%d board, seed %d, P(2) = %.2f, %d moves%n",
+                          runner.size(), runner.size(), runner.seed(),
+                          runner.probOf2(), runner.moveCount());
+        long start = System.nanoTime();
+        Model model = runner.modelAt(move);
+        System.out.printf("Position after move %d (rebuilt in %.3f ms):%s",
+                          move, (System.nanoTime() - start) / 1e6, model);
+    }
+
+    /** Size of the header of a log, in bytes. */
+    private static final int HEADER_SIZE = 4 + 1 + 4 + 8 + 8 + 8;
+
+    /** Number of squares on a side of the board. */
+    private final int _size;
+    /** Value of the winning tile. */
+    private final long _maxPiece;
+    /** Random seed of the session. */
+    private final long _seed;
+    /** Probability that a new tile was 2. */
+    private final double _probOf2;
+    /** The events of the log, following the header. */
+    private final byte[] _events;
+    /** _moveOffsets[k] is the offset in _events of move K. */
+    private int[] _moveOffsets;
+    /** Number of moves in the log. */
+    private int _moveCount;
+    /** _snapshots.get(s) is the position before move
+     *  s * SNAPSHOT_INTERVAL. */
+    private final List<Snapshot> _snapshots = new ArrayList<>();
+    /** The value of the varint last read. */
+    private long _varint;
+}
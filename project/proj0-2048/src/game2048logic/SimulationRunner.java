@@ -0,0 +1,242 @@
+package game2048logic;
+
+import game2048rendering.Side;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Formatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+
+/** Plays many games of 2048 without a GUI, in parallel, and reports how
+ *  fast they ran and how well the move policy did. New tiles follow the
+ *  same rules as in Game (see TileSpawner), and each game has its own
+ *  seed, so a run is reproducible for a given seed and policy. A game
+ *  in which the policy gives up or chooses a tilt that does not change
+ *  the board ends there, and is counted as such in the report, rather
+ *  than being played on with some other move.
+ *
+ *  Usage: java game2048logic.SimulationRunner [GAMES [THREADS [POLICY
+ *  [SIZE [SEED]]]]], where POLICY is "random" or "ai".
+ */
+public class SimulationRunner {
+
+    /** A runner for games on SIZE x SIZE boards in which new tiles are 2
+     *  with probability PROBOF2, played on THREADS threads. */
+    public SimulationRunner(int size, double probOf2, int threads) {
+        _size = size;
+        _probOf2 = probOf2;
+        _threads = threads;
+    }
+
+    /** Play GAMES games, the Kth of which uses the policy returned by
+     *  POLICIES for that game's seed. The seeds are derived from SEED.
+     *  Return a summary of the results. */
+    public Report run(int games, long seed, LongFunction<MovePolicy> policies) {
+        Random seeds = new Random(seed);
+        ExecutorService pool = Executors.newFixedThreadPool(_threads);
+        try {
+            long start = System.nanoTime();
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int k = 0; k < games; k += 1) {
+                long gameSeed = seeds.nextLong();
+                long nonzeroSeed = gameSeed == 0 ? 1 : gameSeed;
+                results.add(pool.submit(
+                    () -> playGame(nonzeroSeed, policies.apply(nonzeroSeed))));
+            }
+            Report report = new Report(games);
+            for (Future<long[]> result : results) {
+                report.add(result.get());
+            }
+            report._nanos = System.nanoTime() - start;
+            return report;
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("simulation interrupted");
+        } catch (ExecutionException excp) {
+            throw new IllegalStateException(excp.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Play one game using SEED for new tiles and POLICY to choose moves.
+     *  Return { score, largest tile, number of moves, I }, where I is 1
+     *  if the game ended because POLICY returned null or a side that is
+     *  not among the model's legalMoves, and 0 otherwise. */
+    long[] playGame(long seed, MovePolicy policy) {
+        Model model = new Model(_size);
+        TileSpawner spawner = new TileSpawner(_probOf2, seed);
+        model.addTile(spawner.newTile(model));
+        model.addTile(spawner.newTile(model));
+        long moves = 0;
+        long illegal = 0;
+        while (!model.gameOver()) {
+            Side side = policy.bestMove(model);
+            if (side == null || !model.legalMoves().contains(side)) {
+                illegal = 1;
+                break;
+            }
+            model.tiltWrapper(side);
+            moves += 1;
+            if (!model.gameOver()) {
+                model.addTile(spawner.newTile(model));
+            }
+        }
+        return new long[] { model.score(),
+                            1L << model.getBoard().maxExponent(), moves,
+                            illegal };
+    }
+
+    /** The results of a run of games. */
+    public static class Report {
+        /** An empty report with room for GAMES games. */
+        Report(int games) {
+            _scores = new long[games];
+        }
+
+        /** Add the result { score, largest tile, moves, I } of one game,
+         *  as returned by playGame. */
+        void add(long[] result) {
+            _scores[_games] = result[0];
+            _maxTiles.merge(result[1], 1, Integer::sum);
+            _moves += result[2];
+            _illegalEnds += (int) result[3];
+            _games += 1;
+        }
+
+        /** Return the number of games played. */
+        public int games() {
+            return _games;
+        }
+
+        /** Return the total number of moves made in all games. */
+        public long moves() {
+            return _moves;
+        }
+
+        /** Return the number of games that ended because the policy gave
+         *  up or chose a tilt that did not change the board, rather than
+         *  because no tilt could. */
+        public int illegalEnds() {
+            return _illegalEnds;
+        }
+
+        /** Return the number of games completed per second. */
+        public double gamesPerSecond() {
+            return _games * 1e9 / _nanos;
+        }
+
+        /** Return the number of moves made per second. */
+        public double movesPerSecond() {
+            return _moves * 1e9 / _nanos;
+        }
+
+        /** Return the final scores of the games, in increasing order. */
+        public long[] scores() {
+            long[] result = Arrays.copyOf(_scores, _games);
+            Arrays.sort(result);
+            return result;
+        }
+
+        /** Return the number of games that ended with each value as the
+         *  largest tile, in increasing order of tile value. */
+        public Map<Long, Integer> maxTileHistogram() {
+            return new TreeMap<>(_maxTiles);
+        }
+
+        @Override
+        public String toString() {
+            Formatter out = new Formatter();
+            long[] scores = scores();
+            out.format("%d games, %d moves in %.3f s%n",
+                       _games, _moves, _nanos / 1e9);
+            out.format("%.1f games/s, %.1f moves/s%n",
+                       gamesPerSecond(), movesPerSecond());
+            if (_games > 0) {
+                out.format("score: min %d, median %d, mean %.1f, p90 %d,"
+                           + " max %d%n", scores[0], scores[_games / 2],
+                           Arrays.stream(scores).average().orElse(0),
+                           scores[(int) (0.9 * (_games - 1))],
+                           scores[_games - 1]);
+            }
+            if (_illegalEnds > 0) {
+                out.format("%d games ended by an illegal move or by giving"
+                           + " up%n", _illegalEnds);
+            }
+            out.format("largest tile:%n");
+            for (Map.Entry<Long, Integer> entry
+                     : maxTileHistogram().entrySet()) {
+                out.format("%8d %6d (%5.1f%%)%n", entry.getKey(),
+                           entry.getValue(), 100.0 * entry.getValue() / _games);
+            }
+            return out.toString();
+        }
+
+        /** Final scores of the games so far. */
+        private final long[] _scores;
+        /** Number of games ending with each largest tile value. */
+        private final Map<Long, Integer> _maxTiles = new TreeMap<>();
+        /** Number of games so far. */
+        private int _games;
+        /** Number of moves in all games so far. */
+        private long _moves;
+        /** Number of games so far ended by an illegal choice. */
+        private int _illegalEnds;
+        /** Elapsed time of the run, in nanoseconds. */
+        private long _nanos;
+    }
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1])
+            : Runtime.getRuntime().availableProcessors();
+        String policy = args.length > 2 ? args[2] : "random";
+        int size = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 1;
+
+        LongFunction<MovePolicy> policies;
+        switch (policy) {
+            case "random" -> policies = SimulationRunner::randomPolicy;
+            case "ai" -> {
+                AIPlayer ai = new AIPlayer(PROB_OF_2, AI_MOVES_PER_SECOND);
+                policies = gameSeed -> ai;
+            }
+            default -> throw new IllegalArgumentException(
+                "unknown policy: " + policy);
+        }
+        SimulationRunner runner = new SimulationRunner(size, PROB_OF_2, threads);
+        System.out.print(runner.run(games, seed, policies));
+    }
+
+    /** Return a policy that picks one of the legal moves at random,
+     *  seeded with SEED. */
+    static MovePolicy randomPolicy(long seed) {
+        Random random = new Random(seed);
+        return model -> {
+            List<Side> legal = model.legalMoves();
+            return legal.isEmpty() ? null
+                : legal.get(random.nextInt(legal.size()));
+        };
+    }
+
+    /** Probability of a new tile being 2 in games run from main. */
+    private static final double PROB_OF_2 = 0.9;
+
+    /** Moves per second the AI aims for in games run from main. */
+    private static final double AI_MOVES_PER_SECOND = 1000.0;
+
+    /** Number of squares on a side of the board. */
+    private final int _size;
+    /** Probability that a new tile is 2. */
+    private final double _probOf2;
+    /** Number of games played at once. */
+    private final int _threads;
+}
@@ -0,0 +1,455 @@
+package game2048logic;
+
+import game2048rendering.Side;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+import java.util.function.DoubleSupplier;
+
+/** Exact solutions of 2048 on small boards (2x2 to 4x4): for each
+ *  position reached with the player to move, the probability of going on
+ *  to make a tile with value 2^target under best play, and the move that
+ *  achieves it. New tiles appear as in TileSpawner.
+ *
+ *  Positions are packed into a long, four bits per square, with square
+ *  (x, y) in bits 4 * (y * size + x) through 4 * (y * size + x) + 3, as
+ *  in BitboardModel. The solver explores the positions reachable from
+ *  those it is asked about by a depth-first expectimax search, and
+ *  memoizes each in a SolverTable: an open-addressing table kept in a
+ *  memory-mapped file, so that tables larger than memory can be built
+ *  and later reopened read-only. Each position is stored once for all
+ *  eight of its rotations and reflections, under the least of their
+ *  packings. Looking up a solved position takes constant time.
+ *
+ *  Usage: java game2048logic.Solver TABLE SIZE TARGET [LOG2SLOTS [PROBOF2]]
+ *  solves every start of a game on a SIZE x SIZE board to a tile of
+ *  value TARGET, storing the results in the file TABLE.
+ */
+public class Solver implements MovePolicy, Closeable {
+
+    /** First four bytes of the header of a table: "204S" in ASCII. */
+    static final int MAGIC = 0x32303453;
+    /** Version of the format. */
+    static final int VERSION = 1;
+
+    /** Size of the stack of the thread that searches, in bytes. The
+     *  search recurses once per move, and a game can last about as many
+     *  moves as the target tile's value times the number of squares
+     *  over 4. */
+    private static final long STACK_SIZE = 1L << 28;
+
+    /** Create a solver for SIZE x SIZE boards (2 <= SIZE <= 4), a target
+     *  tile of value TARGET (8 to 2^15) and new tiles that are 2 with
+     *  probability PROBOF2, whose results are stored in FILE, in a table
+     *  with 2^LOG2SLOTS slots of 16 bytes. */
+    public static Solver create(Path file, int size, int target,
+                                double probOf2, int log2Slots)
+        throws IOException {
+        if (size < 2 || size > 4) {
+            throw new IllegalArgumentException("board size must be 2 to 4");
+        }
+        if (target < 8 || target > 1 << 15
+            || Integer.bitCount(target) != 1) {
+            throw new IllegalArgumentException(
+                "target must be a power of 2 from 8 to 32768: " + target);
+        }
+        SolverTable table = SolverTable.create(file, log2Slots);
+        MappedByteBuffer header = table.header();
+        header.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, size)
+            .putInt(12, Integer.numberOfTrailingZeros(target))
+            .putDouble(16, probOf2);
+        return new Solver(table, size,
+                          Integer.numberOfTrailingZeros(target), probOf2);
+    }
+
+    /** Return the solver whose results were stored in FILE by create,
+     *  able only to look them up. */
+    public static Solver open(Path file) throws IOException {
+        SolverTable table = SolverTable.open(file, true);
+        MappedByteBuffer header = table.header();
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            table.close();
+            throw new IllegalArgumentException("not a solver table: " + file);
+        }
+        table.setCount(header.getLong(24));
+        return new Solver(table, header.getInt(8), header.getInt(12),
+                          header.getDouble(16));
+    }
+
+    /** A solver using TABLE for SIZE x SIZE boards, the target tile
+     *  2^TARGET, and new tiles that are 2 with probability PROBOF2. */
+    private Solver(SolverTable table, int size, int target, double probOf2) {
+        _table = table;
+        _size = size;
+        _target = target;
+        _probOf2 = probOf2;
+        _rows = rowTables(size);
+        _perms = permutations(size);
+        _sides = sideMaps();
+    }
+
+    /** Return the number of squares on a side of the boards solved. */
+    public int size() {
+        return _size;
+    }
+
+    /** Return the value of the target tile. */
+    public int target() {
+        return 1 << _target;
+    }
+
+    /** Return the number of positions in the table. */
+    public long positions() {
+        return _table.count();
+    }
+
+    /** Return the probability of making the target tile from the
+     *  position of MODEL, with the player to move, under best play,
+     *  solving it and every position reachable from it if need be. */
+    public double solve(Model model) {
+        long state = pack(model);
+        return search(() -> value(state));
+    }
+
+    /** Return the probability of making the target tile under best play
+     *  from the start of a game, when two new tiles are added to an empty
+     *  board, solving all the positions needed. */
+    public double solveStart() {
+        return search(() -> {
+            double sum = 0;
+            int squares = _size * _size;
+            for (int s = 0; s < squares; s += 1) {
+                sum += _probOf2 * chance(1L << (4 * s))
+                    + (1 - _probOf2) * chance(2L << (4 * s));
+            }
+            return sum / squares;
+        });
+    }
+
+    /** Return the result of SEARCH, run on a thread with a stack deep
+     *  enough for the search. */
+    private double search(DoubleSupplier search) {
+        double[] result = new double[1];
+        RuntimeException[] failure = new RuntimeException[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                result[0] = search.getAsDouble();
+            } catch (RuntimeException excp) {
+                failure[0] = excp;
+            }
+        }, "solver", STACK_SIZE);
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("solver interrupted");
+        }
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        _table.header().putLong(24, _table.count());
+        return result[0];
+    }
+
+    /** Return the probability of making the target tile from the
+     *  position of MODEL, with the player to move, under best play, or
+     *  NaN if that position has not been solved. */
+    public double winProbability(Model model) {
+        long state = pack(model);
+        if (won(state)) {
+            return 1;
+        }
+        long entry = _table.get(canonical(state));
+        return entry == 0 ? Double.NaN
+            : Float.intBitsToFloat((int) (entry >>> 8));
+    }
+
+    /** Return the best side toward which to tilt MODEL, or null if its
+     *  position has not been solved, is won, or has no moves. */
+    @Override
+    public Side bestMove(Model model) {
+        if (model.size() != _size) {
+            return null;
+        }
+        long state = pack(model);
+        long key = canonical(state);
+        long entry = _table.get(key);
+        int side = (int) entry & 0x7F;
+        if (entry == 0 || side >= Side.values().length) {
+            return null;
+        }
+        for (int t = 0; t < _perms.length; t += 1) {
+            if (transform(state, t) == key) {
+                return _sides[t][side];
+            }
+        }
+        throw new IllegalStateException("no symmetry maps to the key");
+    }
+
+    /** Return the probability of making the target tile from packed
+     *  position STATE, with the player to move, under best play. */
+    private double value(long state) {
+        if (won(state)) {
+            return 1;
+        }
+        long key = canonical(state);
+        long entry = _table.get(key);
+        if (entry != 0) {
+            return Float.intBitsToFloat((int) (entry >>> 8));
+        }
+        double best = 0;
+        int bestSide = NO_MOVE;
+        for (Side side : SIDES) {
+            long next = tilt(key, side);
+            if (next == key) {
+                continue;
+            }
+            double p = won(next) ? 1 : chance(next);
+            if (bestSide == NO_MOVE || p > best) {
+                best = p;
+                bestSide = side.ordinal();
+            }
+            if (best == 1) {
+                break;
+            }
+        }
+        _table.put(key, (long) Float.floatToIntBits((float) best) << 8
+                   | 0x80 | bestSide);
+        return best;
+    }
+
+    /** Return the probability of making the target tile from packed
+     *  position STATE once a new tile has been added to it. */
+    private double chance(long state) {
+        double sum = 0;
+        int empty = 0;
+        for (int s = 0; s < _size * _size; s += 1) {
+            if ((state >>> (4 * s) & 0xF) == 0) {
+                sum += _probOf2 * value(state | 1L << (4 * s))
+                    + (1 - _probOf2) * value(state | 2L << (4 * s));
+                empty += 1;
+            }
+        }
+        return sum / empty;
+    }
+
+    /** Return true iff packed position STATE holds the target tile. */
+    private boolean won(long state) {
+        for (int s = 0; s < _size * _size; s += 1) {
+            if ((state >>> (4 * s) & 0xF) == _target) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Return packed position STATE tilted toward SIDE. */
+    private long tilt(long state, Side side) {
+        return switch (side) {
+            case WEST -> tiltRows(state, _rows[0]);
+            case EAST -> tiltRows(state, _rows[1]);
+            case NORTH -> transform(tiltRows(transform(state, TRANSPOSE),
+                                             _rows[1]), TRANSPOSE);
+            case SOUTH -> transform(tiltRows(transform(state, TRANSPOSE),
+                                             _rows[0]), TRANSPOSE);
+        };
+    }
+
+    /** Return STATE with each of its rows replaced through TABLE. */
+    private long tiltRows(long state, char[] table) {
+        int bits = 4 * _size;
+        long result = 0;
+        for (int y = 0; y < _size; y += 1) {
+            result |= (long) table[(int) (state >>> (bits * y))
+                                   & ((1 << bits) - 1)] << (bits * y);
+        }
+        return result;
+    }
+
+    /** Return the least packing of the rotations and reflections of
+     *  STATE. */
+    private long canonical(long state) {
+        long key = state;
+        for (int t = 1; t < _perms.length; t += 1) {
+            key = Math.min(key, transform(state, t));
+        }
+        return key;
+    }
+
+    /** Return STATE with its squares moved by symmetry T. */
+    private long transform(long state, int t) {
+        int[] perm = _perms[t];
+        long result = 0;
+        for (int s = 0; s < perm.length; s += 1) {
+            result |= (state >>> (4 * s) & 0xF) << (4 * perm[s]);
+        }
+        return result;
+    }
+
+    /** Return the position of MODEL, which must have size(), packed,
+     *  with tiles larger than the target counted as the target. */
+    private long pack(Model model) {
+        if (model.size() != _size) {
+            throw new IllegalArgumentException("board must be " + _size
+                                               + "x" + _size);
+        }
+        long state = 0;
+        for (int y = 0; y < _size; y += 1) {
+            for (int x = 0; x < _size; x += 1) {
+                long e = Math.min(_target,
+                                  model.getBoard().exponent(x, y));
+                state |= e << (4 * (y * _size + x));
+            }
+        }
+        return state;
+    }
+
+    /** Return the tables giving the result of tilting each row of SIZE
+     *  squares toward x = 0 (element 0) and toward x = SIZE - 1 (element
+     *  1), as for BitboardModel. */
+    private static char[][] rowTables(int size) {
+        int rows = 1 << (4 * size);
+        char[] left = new char[rows], right = new char[rows];
+        int[] line = new int[size];
+        for (int row = 0; row < rows; row += 1) {
+            int n = 0;
+            boolean mergeable = false;
+            for (int k = 0; k < size; k += 1) {
+                int e = (row >>> (4 * k)) & 0xF;
+                if (e == 0) {
+                    continue;
+                }
+                if (mergeable && line[n - 1] == e && e < 0xF) {
+                    line[n - 1] = e + 1;
+                    mergeable = false;
+                } else {
+                    line[n] = e;
+                    n += 1;
+                    mergeable = true;
+                }
+            }
+            int result = 0;
+            for (int k = 0; k < n; k += 1) {
+                result |= line[k] << (4 * k);
+            }
+            left[row] = (char) result;
+        }
+        for (int row = 0; row < rows; row += 1) {
+            right[row] = (char) reverse(left[reverse(row, size)], size);
+        }
+        return new char[][] { left, right };
+    }
+
+    /** Return ROW of SIZE nibbles in reverse order. */
+    private static int reverse(int row, int size) {
+        int result = 0;
+        for (int k = 0; k < size; k += 1) {
+            result |= ((row >>> (4 * k)) & 0xF) << (4 * (size - 1 - k));
+        }
+        return result;
+    }
+
+    /** Return the permutations of the squares of a SIZE x SIZE board for
+     *  each of its eight symmetries: symmetry T maps (x, y) to (y, x) if
+     *  bit 0 of T is set, and then reflects the first coordinate if bit 1
+     *  is set and the second if bit 2 is. */
+    private static int[][] permutations(int size) {
+        int[][] perms = new int[8][size * size];
+        for (int t = 0; t < 8; t += 1) {
+            for (int y = 0; y < size; y += 1) {
+                for (int x = 0; x < size; x += 1) {
+                    int a = (t & 1) != 0 ? y : x, b = (t & 1) != 0 ? x : y;
+                    a = (t & 2) != 0 ? size - 1 - a : a;
+                    b = (t & 4) != 0 ? size - 1 - b : b;
+                    perms[t][y * size + x] = b * size + a;
+                }
+            }
+        }
+        return perms;
+    }
+
+    /** Return the side maps of the symmetries: _sides[t][s] is the side
+     *  that symmetry T maps to the side with ordinal S, so that tilting
+     *  a position toward _sides[t][s] matches tilting its image under T
+     *  toward side S. */
+    private static Side[][] sideMaps() {
+        Side[][] maps = new Side[8][Side.values().length];
+        for (int t = 0; t < 8; t += 1) {
+            for (Side side : SIDES) {
+                int[] d = direction(side);
+                int a = (t & 1) != 0 ? d[1] : d[0],
+                    b = (t & 1) != 0 ? d[0] : d[1];
+                a = (t & 2) != 0 ? -a : a;
+                b = (t & 4) != 0 ? -b : b;
+                for (Side image : SIDES) {
+                    if (direction(image)[0] == a && direction(image)[1] == b) {
+                        maps[t][image.ordinal()] = side;
+                    }
+                }
+            }
+        }
+        return maps;
+    }
+
+    /** Return the direction { dx, dy } in which tiles move when the board
+     *  is tilted toward SIDE. */
+    private static int[] direction(Side side) {
+        return switch (side) {
+            case NORTH -> new int[] { 0, 1 };
+            case EAST -> new int[] { 1, 0 };
+            case SOUTH -> new int[] { 0, -1 };
+            case WEST -> new int[] { -1, 0 };
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        _table.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: java game2048logic.Solver TABLE SIZE"
+                               + " TARGET [LOG2SLOTS [PROBOF2]]");
+            System.exit(1);
+        }
+        int size = Integer.parseInt(args[1]);
+        int target = Integer.parseInt(args[2]);
+        int log2Slots = args.length > 3 ? Integer.parseInt(args[3]) : 24;
+        double probOf2 = args.length > 4 ? Double.parseDouble(args[4]) : 0.9;
+        try (Solver solver = create(Path.of(args[0]), size, target, probOf2,
+                                    log2Slots)) {
+            long start = System.nanoTime();
+            double p = solver.solveStart();
+            System.out.printf("%dx%d to %d: P(win) = %.6f from the start;"
+                              + " %d positions in %.3f s%n", size, size,
+                              target, p, solver.positions(),
+                              (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    /** The sides, in order of ordinal. */
+    private static final Side[] SIDES = Side.values();
+    /** Stored in place of a side for positions with no moves. */
+    private static final int NO_MOVE = 0x7F;
+    /** The symmetry that exchanges x and y. */
+    private static final int TRANSPOSE = 1;
+
+    /** The table of solved positions. */
+    private final SolverTable _table;
+    /** Number of squares on a side of the board. */
+    private final int _size;
+    /** Exponent of the target tile. */
+    private final int _target;
+    /** Probability that a new tile is 2. */
+    private final double _probOf2;
+    /** Row tilt tables toward x = 0 and toward x = _size - 1. */
+    private final char[][] _rows;
+    /** Permutations of the squares for each symmetry. */
+    private final int[][] _perms;
+    /** Side maps of the symmetries (see sideMaps). */
+    private final Side[][] _sides;
+}
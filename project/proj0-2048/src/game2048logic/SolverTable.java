@@ -0,0 +1,170 @@
+package game2048logic;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/** An open-addressing hash table from nonzero long keys to nonzero long
+ *  values, kept off the heap in a memory-mapped file. The file starts
+ *  with HEADER_SIZE bytes that the owner of the table may use, followed
+ *  by 2^log2Slots slots of two longs (key, value), with key 0 marking an
+ *  empty slot. The slots are mapped in chunks of at most CHUNK_SLOTS, so
+ *  tables may be larger than one mapping allows, and larger than memory:
+ *  the operating system keeps only the pages in use in RAM.
+ */
+class SolverTable implements Closeable {
+
+    /** Size of the header, in bytes. */
+    static final int HEADER_SIZE = 64;
+
+    /** Largest number of slots in one mapped chunk: 1 GiB. */
+    private static final int CHUNK_SLOTS = 1 << 26;
+
+    /** Size of a slot, in bytes. */
+    private static final int SLOT_SIZE = 2 * Long.BYTES;
+
+    /** A new, empty table in FILE, replacing any previous contents, with
+     *  2^LOG2SLOTS slots. */
+    static SolverTable create(Path file, int log2Slots) throws IOException {
+        if (log2Slots < 1 || log2Slots > 40) {
+            throw new IllegalArgumentException("bad table size: 2^"
+                                               + log2Slots);
+        }
+        FileChannel channel =
+            FileChannel.open(file, READ, WRITE, CREATE, TRUNCATE_EXISTING);
+        return new SolverTable(channel, log2Slots, FileChannel.MapMode.READ_WRITE);
+    }
+
+    /** The table previously created in FILE, read-only if READONLY. */
+    static SolverTable open(Path file, boolean readOnly) throws IOException {
+        FileChannel channel = readOnly ? FileChannel.open(file, READ)
+            : FileChannel.open(file, READ, WRITE);
+        long slots = (channel.size() - HEADER_SIZE) / SLOT_SIZE;
+        if (slots < 2 || Long.bitCount(slots) != 1) {
+            channel.close();
+            throw new IllegalArgumentException("not a solver table: " + file);
+        }
+        return new SolverTable(channel, Long.numberOfTrailingZeros(slots),
+                               readOnly ? FileChannel.MapMode.READ_ONLY
+                               : FileChannel.MapMode.READ_WRITE);
+    }
+
+    /** A table with 2^LOG2SLOTS slots in the file open on CHANNEL, mapped
+     *  with MODE. */
+    private SolverTable(FileChannel channel, int log2Slots,
+                        FileChannel.MapMode mode) throws IOException {
+        _channel = channel;
+        _shift = 64 - log2Slots;
+        _mask = (1L << log2Slots) - 1;
+        long slots = 1L << log2Slots;
+        int chunkSlots = (int) Math.min(slots, CHUNK_SLOTS);
+        _header = channel.map(mode, 0, HEADER_SIZE);
+        _chunks = new MappedByteBuffer[(int) (slots / chunkSlots)];
+        _chunkShift = Integer.numberOfTrailingZeros(chunkSlots);
+        for (int k = 0; k < _chunks.length; k += 1) {
+            _chunks[k] = channel.map(mode,
+                                     HEADER_SIZE + (long) k * chunkSlots
+                                     * SLOT_SIZE,
+                                     (long) chunkSlots * SLOT_SIZE);
+        }
+    }
+
+    /** Return the header of the file, for use by the owner. */
+    MappedByteBuffer header() {
+        return _header;
+    }
+
+    /** Return the value stored for KEY (nonzero), or 0 if there is
+     *  none. */
+    long get(long key) {
+        for (long slot = index(key); ; slot = (slot + 1) & _mask) {
+            MappedByteBuffer chunk = _chunks[(int) (slot >>> _chunkShift)];
+            int offset = offset(slot);
+            long k = chunk.getLong(offset);
+            if (k == key) {
+                return chunk.getLong(offset + Long.BYTES);
+            } else if (k == 0) {
+                return 0;
+            }
+        }
+    }
+
+    /** Store VALUE (nonzero) for KEY (nonzero). Throws
+     *  IllegalStateException if the table is too full. */
+    void put(long key, long value) {
+        if (_count >= (_mask + 1) - ((_mask + 1) >>> 3)) {
+            throw new IllegalStateException("solver table is full ("
+                                            + _count + " entries)");
+        }
+        for (long slot = index(key); ; slot = (slot + 1) & _mask) {
+            MappedByteBuffer chunk = _chunks[(int) (slot >>> _chunkShift)];
+            int offset = offset(slot);
+            long k = chunk.getLong(offset);
+            if (k == 0 || k == key) {
+                chunk.putLong(offset, key);
+                chunk.putLong(offset + Long.BYTES, value);
+                _count += k == 0 ? 1 : 0;
+                return;
+            }
+        }
+    }
+
+    /** Return the number of entries. */
+    long count() {
+        return _count;
+    }
+
+    /** Set the number of entries to COUNT, as recorded by the owner in
+     *  the header, when the table is reopened. */
+    void setCount(long count) {
+        _count = count;
+    }
+
+    /** Return the first slot to probe for KEY. */
+    private long index(long key) {
+        return (key * 0x9E3779B97F4A7C15L) >>> _shift;
+    }
+
+    /** Return the offset of SLOT within its chunk. */
+    private int offset(long slot) {
+        return (int) (slot & ((1L << _chunkShift) - 1)) * SLOT_SIZE;
+    }
+
+    /** Write any changes to the file. */
+    void force() {
+        if (!_header.isReadOnly()) {
+            _header.force();
+            for (MappedByteBuffer chunk : _chunks) {
+                chunk.force();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        _channel.close();
+    }
+
+    /** The file holding the table. */
+    private final FileChannel _channel;
+    /** The header of the file. */
+    private final MappedByteBuffer _header;
+    /** The slots, in chunks of 2^_chunkShift. */
+    private final MappedByteBuffer[] _chunks;
+    /** Base-2 logarithm of the number of slots in a chunk. */
+    private final int _chunkShift;
+    /** Amount to shift a hashed key right to get a slot number. */
+    private final int _shift;
+    /** Number of slots minus 1. */
+    private final long _mask;
+    /** Number of entries. */
+    private long _count;
+}
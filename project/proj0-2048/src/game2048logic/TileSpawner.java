@@ -0,0 +1,41 @@
+package game2048logic;
+
+import game2048rendering.Tile;
+
+import java.util.Random;
+
+/** The source of the random tiles added to a 2048 board after each move:
+ *  a 2 with probability probOf2 or a 4 otherwise, at a uniformly chosen
+ *  empty square.
+ */
+public class TileSpawner {
+
+    /** A spawner whose tiles are 2 with probability PROBOF2, using SEED
+     *  as the random seed. A SEED of 0 gives an unpredictable sequence. */
+    public TileSpawner(double probOf2, long seed) {
+        _probOf2 = probOf2;
+        if (seed == 0) {
+            _random = new Random();
+        } else {
+            _random = new Random(seed);
+        }
+    }
+
+    /** Return a valid tile for the board of MODEL: one at an empty
+     *  square chosen uniformly at random in constant time, however full
+     *  the board is. Assumes there is at least one empty square on the
+     *  board. */
+    public Tile newTile(Model model) {
+        int size = model.size();
+        int square = model.getBoard().emptySquare(
+            _random.nextInt(model.getBoard().emptyCount()));
+        int v = _random.nextDouble() <= _probOf2 ? 2 : 4;
+        return Tile.create(v, square / size, square % size);
+    }
+
+    /** Probability that the next tile is 2, rather than a 4. */
+    private final double _probOf2;
+
+    /** Source of random numbers. */
+    private final Random _random;
+}
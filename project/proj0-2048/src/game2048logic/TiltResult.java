@@ -0,0 +1,95 @@
+package game2048logic;
+
+import game2048rendering.Board;
+
+/** What happened during one tilt of a Model: which tiles moved where,
+ *  how many of those moves were merges, and how many points they
+ *  earned. Coordinates are standard ones, with (0, 0) at the lower-left
+ *  corner of the board.
+ *
+ *  A TiltResult is a view of its board's move log rather than a copy, so
+ *  that tilting allocates nothing. Each Model returns the same one from
+ *  every tilt, and it describes the latest tilt only until the model
+ *  next changes.
+ */
+public final class TiltResult {
+
+    /** A result reading the moves logged by BOARD (see Board.moveLog). */
+    TiltResult(Board board) {
+        _board = board;
+    }
+
+    /** Record that the tilt just logged by the board earned SCOREDELTA
+     *  points, and return this. */
+    TiltResult set(long scoreDelta) {
+        _scoreDelta = scoreDelta;
+        return this;
+    }
+
+    /** Return true iff any tile moved. */
+    public boolean moved() {
+        return _board.moveLogSize() > 0;
+    }
+
+    /** Return the number of merges performed. */
+    public int merges() {
+        int merges = 0;
+        for (int k = 0; k < moveCount(); k += 1) {
+            merges += (int) (_board.loggedMove(k) & 1);
+        }
+        return merges;
+    }
+
+    /** Return the number of points earned. */
+    public long scoreDelta() {
+        return _scoreDelta;
+    }
+
+    /** Return the number of tile moves, including merges. */
+    public int moveCount() {
+        return _board.moveLogSize();
+    }
+
+    /** Return the x-coordinate from which the Kth tile move started. */
+    public int fromX(int k) {
+        return (int) (_board.loggedMove(k) >>> 32) / _board.size();
+    }
+
+    /** Return the y-coordinate from which the Kth tile move started. */
+    public int fromY(int k) {
+        return (int) (_board.loggedMove(k) >>> 32) % _board.size();
+    }
+
+    /** Return the x-coordinate at which the Kth tile move ended. */
+    public int toX(int k) {
+        return ((int) _board.loggedMove(k) >>> 1) / _board.size();
+    }
+
+    /** Return the y-coordinate at which the Kth tile move ended. */
+    public int toY(int k) {
+        return ((int) _board.loggedMove(k) >>> 1) % _board.size();
+    }
+
+    /** Return true iff the Kth tile move merged with another tile. */
+    public boolean merged(int k) {
+        return (_board.loggedMove(k) & 1) != 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%d moves, %d merges, +%d points",
+                                 moveCount(), merges(), scoreDelta()));
+        for (int k = 0; k < moveCount(); k += 1) {
+            out.append(String.format("%n(%d, %d) -> (%d, %d)%s", fromX(k),
+                                     fromY(k), toX(k), toY(k),
+                                     merged(k) ? " merged" : ""));
+        }
+        return out.toString();
+    }
+
+    /** The board whose move log this reads. */
+    private final Board _board;
+    /** Points earned. */
+    private long _scoreDelta;
+}
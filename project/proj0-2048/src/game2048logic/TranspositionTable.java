@@ -0,0 +1,48 @@
+package game2048logic;
+
+/** A fixed-size table of search results for packed 4x4 boards, shared by
+ *  all threads of a search without locking. Each entry is a pair of longs
+ *  (KEY ^ DATA, DATA), where DATA packs a value and the depth to which it
+ *  was searched. A reader accepts an entry only if the two halves agree
+ *  with the key it is looking up, so an entry torn by concurrent writers
+ *  reads as a miss rather than as a wrong value.
+ */
+class TranspositionTable {
+
+    /** A table with 2^LOG2SIZE entries. */
+    TranspositionTable(int log2Size) {
+        _slots = new long[2 << log2Size];
+        _shift = 64 - log2Size;
+    }
+
+    /** Return the value stored for board KEY if it was searched to at
+     *  least DEPTH (> 0), and otherwise NaN. */
+    double get(long key, int depth) {
+        int k = index(key);
+        long data = _slots[k + 1];
+        if ((_slots[k] ^ data) != key || (data & 0xFF) < depth) {
+            return Double.NaN;
+        }
+        return Float.intBitsToFloat((int) (data >>> 8));
+    }
+
+    /** Record that board KEY has VALUE when searched to DEPTH (> 0). */
+    void put(long key, int depth, double value) {
+        int k = index(key);
+        long data = Integer.toUnsignedLong(
+                Float.floatToRawIntBits((float) value)) << 8
+            | Math.min(depth, 0xFF);
+        _slots[k] = key ^ data;
+        _slots[k + 1] = data;
+    }
+
+    /** Return the index in _slots of the entry for KEY. */
+    private int index(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> _shift) << 1;
+    }
+
+    /** Entries of the table, two longs apiece. */
+    private final long[] _slots;
+    /** Amount to shift a hashed key right to get an entry number. */
+    private final int _shift;
+}
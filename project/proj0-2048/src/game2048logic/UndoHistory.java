@@ -0,0 +1,117 @@
+package game2048logic;
+
+import game2048rendering.Board;
+
+/** A bounded record of the positions of a game, through which a Model
+ *  steps back and forth for undo and redo. Each position is packed as
+ *  the exponent bytes of its board (see Board.saveExponents) plus its
+ *  score, so a 4x4 position costs 24 bytes. The positions sit in a ring
+ *  that grows as needed up to the limit, after which the oldest are
+ *  dropped.
+ *
+ *  The positions are numbered 0 .. count() - 1 from the oldest. One of
+ *  them is current: it is the position of the model, whose copy in the
+ *  ring is brought up to date only when the model steps away from it.
+ */
+class UndoHistory {
+
+    /** A history for boards of SQUARES squares that can step back at most
+     *  LIMIT (> 0) moves. */
+    UndoHistory(int squares, int limit) {
+        _squares = squares;
+        _maxPositions = limit + 1;
+        int capacity = Math.min(_maxPositions, INITIAL_CAPACITY);
+        _boards = new byte[capacity * squares];
+        _scores = new long[capacity];
+        _count = 1;
+    }
+
+    /** Return the number of moves that can be undone. */
+    int undoCount() {
+        return _current;
+    }
+
+    /** Return the number of moves that can be redone. */
+    int redoCount() {
+        return _count - 1 - _current;
+    }
+
+    /** Forget all positions but the current one. */
+    void reset() {
+        _first = 0;
+        _count = 1;
+        _current = 0;
+    }
+
+    /** Record BOARD and SCORE as the current position. */
+    void save(Board board, long score) {
+        int slot = slot(_current);
+        board.saveExponents(_boards, slot * _squares);
+        _scores[slot] = score;
+    }
+
+    /** Make a new position, following the current one, current, and
+     *  forget any positions that followed it. The new position's contents
+     *  are recorded by the next call to save. */
+    void advance() {
+        _current += 1;
+        _count = _current + 1;
+        if (_count > _maxPositions) {
+            _first = (_first + 1) % _scores.length;
+            _count -= 1;
+            _current -= 1;
+        } else if (_count > _scores.length) {
+            grow();
+        }
+    }
+
+    /** Make the position DELTA (-1 or 1) away from the current one current
+     *  and restore it to BOARD. Return its score. The current position
+     *  must already have been saved, and the new one must exist. */
+    long step(Board board, int delta) {
+        _current += delta;
+        int slot = slot(_current);
+        board.restoreExponents(_boards, slot * _squares);
+        return _scores[slot];
+    }
+
+    /** Return the index in the ring of position K. */
+    private int slot(int k) {
+        int slot = _first + k;
+        return slot < _scores.length ? slot : slot - _scores.length;
+    }
+
+    /** Double the size of the ring, up to room for _maxPositions. */
+    private void grow() {
+        int capacity = (int) Math.min(_maxPositions, 2L * _scores.length);
+        byte[] boards = new byte[capacity * _squares];
+        long[] scores = new long[capacity];
+        for (int k = 0; k < _count - 1; k += 1) {
+            int slot = slot(k);
+            System.arraycopy(_boards, slot * _squares, boards, k * _squares,
+                             _squares);
+            scores[k] = _scores[slot];
+        }
+        _boards = boards;
+        _scores = scores;
+        _first = 0;
+    }
+
+    /** Initial number of positions the ring has room for. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Number of squares on a board. */
+    private final int _squares;
+    /** Largest number of positions kept. */
+    private final int _maxPositions;
+    /** The exponent bytes of the positions, _squares per slot. */
+    private byte[] _boards;
+    /** The scores of the positions, one per slot. */
+    private long[] _scores;
+    /** Slot of position 0. */
+    private int _first;
+    /** Number of positions. */
+    private int _count;
+    /** Number of the current position. */
+    private int _current;
+}
@@ -1,74 +1,326 @@
 package game2048rendering;
 
+import game2048logic.Metrics;
+
 import java.util.Arrays;
 import java.util.Formatter;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author hug
  */
 public class Board {
-    /** Current contents of the board. */
-    private final Tile[][] _values;
+    /** Number of squares on a side. */
+    private final int _size;
+    /** Largest exponent of a tile value that a board can hold. Values
+     *  up to 2^MAX_EXPONENT, and the score points they earn, fit in a
+     *  long. */
+    public static final int MAX_EXPONENT = 62;
+
+    /** Exponents of the values of the tiles on the board, one byte per
+     *  square, indexed by square: standard coordinates (x, y) are square
+     *  x * size() + y. A tile with value 2^e is stored as e, and 0 marks
+     *  an empty square. */
+    private final byte[] _grid;
+    /** _merged[s] is true iff the tile in square S is the result of a
+     *  merge since the last call to resetMerged. */
+    private final boolean[] _merged;
+    /** Tiles being displayed, indexed like _grid, or null if the board is
+     *  headless. Only an animated board builds the chain of successor
+     *  Tiles that a BoardWidget needs; a headless board just updates
+     *  _grid in place. */
+    private Tile[] _values;
     /** Side that the board currently views as north. */
     private Side _viewPerspective;
+    /** The view maps of this board's size, indexed by Side ordinal. */
+    private final int[][] _views;
+    /** The view map for _viewPerspective: _view[x * size() + y] is the
+     *  square at (x, y) with respect to the current viewPerspective. */
+    private int[] _view;
+    /** Zobrist hash of the contents of _grid: the exclusive or of
+     *  zobristKey(square, value) over all occupied squares. */
+    private long _hash;
+    /** The empty squares, each numbered x * size() + y in standard
+     *  coordinates, are _free[0 .. _emptyCount - 1], in no particular
+     *  order. */
+    private final int[] _free;
+    /** _freeIndex[s] is the index of square S in _free, if S is empty. */
+    private final int[] _freeIndex;
+    /** Number of empty squares. */
+    private int _emptyCount;
+    /** _counts[e] is the number of tiles with value 2^e. */
+    private final int[] _counts = new int[MAX_EXPONENT + 1];
+    /** Exponent of the largest tile value on the board, or 0 if it is
+     *  empty. */
+    private int _maxExponent;
+    /** Number of pairs of orthogonally adjacent tiles with equal values
+     *  that may merge (that is, below 2^MAX_EXPONENT). */
+    private int _equalPairs;
+    /** Moves made since the last call to clearMoveLog, in order. Each is
+     *  packed as described in moveLog. */
+    private long[] _moveLog = new long[16];
+    /** Number of entries in _moveLog. */
+    private int _moveLogSize;
+
+    /** Empty move log. */
+    private static final long[] NO_MOVES = new long[0];
+
+    /** View maps of each board size in use, indexed by Side ordinal. */
+    private static final ConcurrentHashMap<Integer, int[][]> VIEW_MAPS =
+        new ConcurrentHashMap<>();
 
     public Board(int size) {
-        _values = new Tile[size][size];
-        _viewPerspective = Side.NORTH;
+        _size = size;
+        _grid = new byte[size * size];
+        _merged = new boolean[size * size];
+        _views = VIEW_MAPS.computeIfAbsent(size, Board::computeViewMaps);
+        setViewingPerspective(Side.NORTH);
+        _free = new int[size * size];
+        _freeIndex = new int[size * size];
+        resetFree();
     }
 
     /** Shifts the view of the board such that the board behaves as if side S is north. */
     public void setViewingPerspective(Side s) {
         _viewPerspective = s;
+        _view = _views[s.ordinal()];
+    }
+
+    /** Return the view map of a board of size SIZE for each Side, in
+     *  order of ordinal. Entry x * SIZE + y of the map for side S is the
+     *  square at (x, y) when S is viewed as north. Looking a square up in
+     *  a map replaces the arithmetic of Side.x and Side.y with a single
+     *  array access. */
+    private static int[][] computeViewMaps(int size) {
+        Side[] sides = Side.values();
+        int[][] maps = new int[sides.length][size * size];
+        for (Side side : sides) {
+            for (int x = 0; x < size; x += 1) {
+                for (int y = 0; y < size; y += 1) {
+                    maps[side.ordinal()][x * size + y] =
+                        side.x(x, y, size) * size + side.y(x, y, size);
+                }
+            }
+        }
+        return maps;
+    }
+
+    /** Return the view map of a board of size SIZE for side SIDE. */
+    static int[] viewMap(int size, Side side) {
+        return VIEW_MAPS.computeIfAbsent(size, Board::computeViewMaps)
+            [side.ordinal()];
     }
 
     /** Create a board where RAWVALUES hold the values of the tiles on the board 
      * (0 is null) with a current score of SCORE and the viewing perspective set to north. */
     public Board(int[][] rawValues) {
+        this(rawValues.length);
         int size = rawValues.length;
-        _values = new Tile[size][size];
-        _viewPerspective = Side.NORTH;
         for (int x = 0; x < size; x += 1) {
             for (int y = 0; y < size; y += 1) {
-                int value = rawValues[size - 1 - y][x];
-                Tile tile;
-                if (value == 0) {
-                    tile = null;
-                } else {
-                    tile = Tile.create(value, x, y);
-                }
-                _values[x][y] = tile;
+                put(x * size + y, exponentOf(rawValues[size - 1 - y][x]));
             }
         }
     }
 
     /** Returns the size of the board. */
     public int size() {
-        return _values.length;
+        return _size;
     }
 
-    /** Return the current Tile at (x, y), when sitting with the board
-     *  oriented so that SIDE is at the top (farthest) from you. */
-    private Tile vtile(int x, int y, Side side) {
-        return _values[side.x(x, y, size())][side.y(x, y, size())];
+    /** Return true iff this board keeps Tile successors for animation. */
+    public boolean animated() {
+        return _values != null;
+    }
+
+    /** Start keeping Tile successors for animation iff ANIMATED. Called
+     *  when a widget that displays this board is attached. */
+    public void setAnimated(boolean animated) {
+        if (!animated) {
+            _values = null;
+        } else if (_values == null) {
+            Tile[] values = new Tile[_grid.length];
+            for (int square = 0; square < values.length; square += 1) {
+                values[square] = physicalTile(square);
+            }
+            _values = values;
+        }
+    }
+
+    /** Return the Tile in SQUARE. A headless board creates a fresh Tile
+     *  describing that square. */
+    private Tile physicalTile(int square) {
+        if (_values != null) {
+            return _values[square];
+        }
+        if (_grid[square] == 0) {
+            return null;
+        }
+        Tile tile = Tile.ofExponent(_grid[square], square / _size,
+                                    square % _size);
+        tile.setMerged(_merged[square]);
+        return tile;
     }
 
     /** Return the current Tile at (x, y), where 0 <= x < size(),
      *  0 <= y < size(). Returns null if there is no tile there. */
     public Tile tile(int x, int y) {
-        return vtile(x, y, _viewPerspective);
+        return physicalTile(_view[x * _size + y]);
+    }
+
+    /** Return the value of the tile at (x, y) with respect to the current
+     *  viewPerspective, or 0 if there is no tile there. Throws
+     *  ArithmeticException if the value does not fit in an int. */
+    public int value(int x, int y) {
+        return valueOf(_grid[_view[x * _size + y]]);
+    }
+
+    /** Return the exponent of the value of the tile at (x, y) with
+     *  respect to the current viewPerspective (e for a tile with value
+     *  2^e), or 0 if there is no tile there. */
+    public int exponent(int x, int y) {
+        return _grid[_view[x * _size + y]];
+    }
+
+    /** Return the tile value 2^E, or 0 if E is 0. Throws
+     *  ArithmeticException if the value does not fit in an int. */
+    private static int valueOf(int e) {
+        if (e >= Integer.SIZE - 1) {
+            throw new ArithmeticException("tile value 2^" + e
+                                          + " does not fit in an int");
+        }
+        return e == 0 ? 0 : 1 << e;
+    }
+
+    /** Return the exponent of VALUE, which is 0 or a power of 2 no
+     *  larger than 2^MAX_EXPONENT, or 0 if VALUE is 0. */
+    private static int exponentOf(long value) {
+        if (value == 0) {
+            return 0;
+        }
+        if (value < 2 || Long.bitCount(value) != 1) {
+            throw new IllegalArgumentException(
+                "tile value must be a power of 2: " + value);
+        }
+        return Long.numberOfTrailingZeros(value);
+    }
+
+    /** Return true iff the tile at (x, y) with respect to the current
+     *  viewPerspective is the result of a merge since the last call to
+     *  resetMerged. */
+    public boolean wasMerged(int x, int y) {
+        return _merged[_view[x * _size + y]];
+    }
+
+    /** Return a 64-bit Zobrist hash of the tiles on the board, which is
+     *  maintained as tiles are added and moved. Equal boards have equal
+     *  hashes. */
+    public long zobristHash() {
+        return _hash;
+    }
+
+    /** Return the number of empty squares. */
+    public int emptyCount() {
+        return _emptyCount;
+    }
+
+    /** Return the standard coordinates of the Kth empty square, where
+     *  0 <= K < emptyCount(), packed as x * size() + y. The numbering of
+     *  the empty squares is arbitrary, but depends only on the sequence
+     *  of changes made to the board, so choosing K at random from a
+     *  seeded source picks the same squares each time. */
+    public int emptySquare(int k) {
+        return _free[k];
+    }
+
+    /** Return the value of the largest tile, or 0 if there are none.
+     *  Throws ArithmeticException if the value does not fit in an int. */
+    public int maxValue() {
+        return valueOf(_maxExponent);
+    }
+
+    /** Return the exponent of the value of the largest tile, or 0 if
+     *  there are none. */
+    public int maxExponent() {
+        return _maxExponent;
+    }
+
+    /** Return the number of tiles with value VALUE, a power of 2. */
+    public int tileCount(long value) {
+        return _counts[exponentOf(value)];
+    }
+
+    /** Return true iff some two orthogonally adjacent tiles have equal
+     *  values, so that a tilt could merge them. Two tiles of value
+     *  2^MAX_EXPONENT do not count, since they never merge. */
+    public boolean hasEqualNeighbors() {
+        return _equalPairs > 0;
+    }
+
+    /** Return the set of sides toward which a tilt would change the
+     *  board, as a mask with bit S.ordinal() set for each such side S.
+     *  A tilt changes the board iff some tile has an empty square or a
+     *  tile of equal value below 2^MAX_EXPONENT next to it in the
+     *  direction of the tilt, so one scan of the board finds all four. */
+    public int tiltableSides() {
+        int north = 1 << Side.NORTH.ordinal(),
+            south = 1 << Side.SOUTH.ordinal(),
+            east = 1 << Side.EAST.ordinal(),
+            west = 1 << Side.WEST.ordinal();
+        int all = north | south | east | west;
+        int mask = 0;
+        for (int x = 0; x < _size && mask != all; x += 1) {
+            for (int y = 0; y < _size; y += 1) {
+                int square = x * _size + y, e = _grid[square];
+                boolean mergeable = e < MAX_EXPONENT;
+                if (y < _size - 1) {
+                    int above = _grid[square + 1];
+                    boolean merge = mergeable && above == e;
+                    if (e != 0 && (above == 0 || merge)) {
+                        mask |= north;
+                    }
+                    if (above != 0 && (e == 0 || merge)) {
+                        mask |= south;
+                    }
+                }
+                if (x < _size - 1) {
+                    int right = _grid[square + _size];
+                    boolean merge = mergeable && right == e;
+                    if (e != 0 && (right == 0 || merge)) {
+                        mask |= east;
+                    }
+                    if (right != 0 && (e == 0 || merge)) {
+                        mask |= west;
+                    }
+                }
+            }
+        }
+        return mask;
     }
 
     /** Clear the board to empty and reset the score. */
     public void clear() {
-        for (Tile[] column : _values) {
-            Arrays.fill(column, null);
+        Arrays.fill(_grid, (byte) 0);
+        _hash = 0;
+        resetFree();
+        Arrays.fill(_counts, 0);
+        _maxExponent = 0;
+        _equalPairs = 0;
+        Arrays.fill(_merged, false);
+        if (_values != null) {
+            Arrays.fill(_values, null);
         }
+        clearMoveLog();
     }
 
     /** Adds the tile T to the board */
     public void addTile(Tile t) {
-        _values[t.x()][t.y()] = t;
+        int square = t.x() * _size + t.y();
+        put(square, t.exponent());
+        _merged[square] = t.wasMerged();
+        if (_values != null) {
+            _values[square] = t;
+        }
     }
 
     
@@ -80,41 +332,359 @@ public class Board {
      * If the move is a merge, sets the tile's merged status to true.
      * */
     public void move(int x, int y, Tile tile) {
-        int px = _viewPerspective.x(x, y, size());
-        int py = _viewPerspective.y(x, y, size());
+        relocate(tile.x() * _size + tile.y(), _view[x * _size + y]);
+    }
 
-        Tile tile1 = vtile(x, y, _viewPerspective);
-        _values[tile.x()][tile.y()] = null;
+    /** Moves the tile at (FROMX, FROMY) to (x, y), merging it with the
+     *  tile already there, if any. All coordinates are with respect to
+     *  the current viewPerspective. */
+    public void move(int x, int y, int fromX, int fromY) {
+        relocate(_view[fromX * _size + fromY], _view[x * _size + y]);
+    }
+
+    /** Moves the tile in square FROM to square TO, merging it with the
+     *  tile already there, if any. */
+    private void relocate(int from, int to) {
+        int e = _grid[from], dest = _grid[to];
+        checkMove(from, to);
+        put(from, 0);
+        _merged[from] = false;
+        put(to, dest == 0 ? e : e + 1);
+        _merged[to] = dest != 0;
+        if (Metrics.ENABLED) {
+            (dest == 0 ? Metrics.MOVES : Metrics.MERGES).increment();
+        }
+
+        if (_moveLogSize == _moveLog.length) {
+            _moveLog = Arrays.copyOf(_moveLog, 2 * _moveLogSize);
+        }
+        _moveLog[_moveLogSize] = packMove(from, to, dest != 0);
+        _moveLogSize += 1;
+
+        if (_values == null) {
+            return;
+        }
 
         // Move or merge the tile. It is important to call setNext
         // on the old tile(s) so they can be animated into position
-        Tile next;
-        if (tile1 == null) {
-            next = Tile.create(tile.value(), px, py);
-        } else {
-            if (tile.value() != tile1.value()) {
-                throw new IllegalArgumentException("Tried to merge two unequal tiles: " + tile + " and " + tile1);
-            }
-            next = Tile.create(2 * tile.value(), px, py);
+        Tile tile = _values[from], tile1 = _values[to];
+        _values[from] = null;
+        Tile next = Tile.ofExponent(_grid[to], to / _size, to % _size);
+        if (tile1 != null) {
             tile1.setNext(next);
         }
         tile.setMerged(tile1 != null);
         next.setMerged(tile.wasMerged());
         tile.setNext(next);
-        _values[px][py] = next;
+        _values[to] = next;
+    }
+
+    /** Moves the tile at (FROMX, FROMY) to (x, y), merging it with the
+     *  tile already there, if any, as for move(x, y, FROMX, FROMY), but
+     *  records the move in BATCH rather than in this board's bookkeeping.
+     *  Moves within different columns of the current view may be made
+     *  at once on several threads, each with its own batch, after which
+     *  applyBatches must be called before the board is otherwise used.
+     *  The board must not be animated. */
+    public void move(int x, int y, int fromX, int fromY, MoveBatch batch) {
+        if (_values != null) {
+            throw new IllegalStateException("batched move on animated board");
+        }
+        int from = _view[fromX * _size + fromY], to = _view[x * _size + y];
+        int e = _grid[from], dest = _grid[to];
+        checkMove(from, to);
+        int value = dest == 0 ? e : e + 1;
+        _grid[from] = 0;
+        _merged[from] = false;
+        _grid[to] = (byte) value;
+        _merged[to] = dest != 0;
+        batch._hash ^= zobristKey(from, e) ^ zobristKey(to, dest)
+            ^ zobristKey(to, value);
+        batch.add(packMove(from, to, dest != 0));
+        if (Metrics.ENABLED) {
+            (dest == 0 ? Metrics.MOVES : Metrics.MERGES).increment();
+        }
+    }
+
+    /** Bring the bookkeeping of the board up to date with the moves in
+     *  BATCHES (null entries are skipped), and empty them. The moves are
+     *  logged, and the empty squares renumbered, just as if they had been
+     *  made one at a time in order, batch by batch. */
+    public void applyBatches(MoveBatch[] batches) {
+        for (MoveBatch batch : batches) {
+            if (batch == null) {
+                continue;
+            }
+            for (int k = 0; k < batch._count; k += 1) {
+                long move = batch._moves[k];
+                if (_moveLogSize == _moveLog.length) {
+                    _moveLog = Arrays.copyOf(_moveLog, 2 * _moveLogSize);
+                }
+                _moveLog[_moveLogSize] = move;
+                _moveLogSize += 1;
+                addFree((int) (move >>> 32));
+                if ((move & 1) == 0) {
+                    removeFree((int) move >>> 1);
+                }
+            }
+            _hash ^= batch._hash;
+            batch._count = 0;
+            batch._hash = 0;
+        }
+        recount();
+    }
+
+    /** The moves made by one thread of a parallel tilt, and their effect
+     *  on the Zobrist hash, awaiting Board.applyBatches. */
+    public static class MoveBatch {
+        /** Record MOVE, packed as in moveLog. */
+        private void add(long move) {
+            if (_count == _moves.length) {
+                _moves = Arrays.copyOf(_moves, 2 * _count);
+            }
+            _moves[_count] = move;
+            _count += 1;
+        }
+
+        /** The moves, in order. */
+        private long[] _moves = new long[16];
+        /** Number of moves. */
+        private int _count;
+        /** Exclusive or of the changes the moves make to the hash. */
+        private long _hash;
+    }
+
+    /** Throw an exception unless the tile in square FROM may move to
+     *  square TO. */
+    private void checkMove(int from, int to) {
+        int e = _grid[from], dest = _grid[to];
+        if (dest != 0 && dest != e) {
+            throw new IllegalArgumentException(
+                String.format("Tried to merge two unequal tiles: Tile %d at"
+                              + " position (%d, %d) and Tile %d at position"
+                              + " (%d, %d)", 1L << e, from / _size,
+                              from % _size, 1L << dest, to / _size,
+                              to % _size));
+        }
+        if (dest == MAX_EXPONENT) {
+            throw new IllegalStateException("tile value would exceed 2^"
+                                            + MAX_EXPONENT);
+        }
+    }
+
+    /** Return the move of a tile from square FROM to square TO, which is
+     *  a merge iff MERGE, packed as in moveLog. */
+    private static long packMove(int from, int to, boolean merge) {
+        return ((long) from << 32) | ((long) to << 1) | (merge ? 1 : 0);
+    }
+
+    /** Recompute the tile counts, largest tile and equal neighbors from
+     *  the contents of the board. */
+    private void recount() {
+        Arrays.fill(_counts, 0);
+        int pairs = 0;
+        for (int square = 0; square < _grid.length; square += 1) {
+            int e = _grid[square];
+            if (e == 0) {
+                continue;
+            }
+            _counts[e] += 1;
+            if (e == MAX_EXPONENT) {
+                continue;
+            }
+            if (square + _size < _grid.length && _grid[square + _size] == e) {
+                pairs += 1;
+            }
+            if (square % _size != _size - 1 && _grid[square + 1] == e) {
+                pairs += 1;
+            }
+        }
+        _equalPairs = pairs;
+        int e = MAX_EXPONENT;
+        while (e > 0 && _counts[e] == 0) {
+            e -= 1;
+        }
+        _maxExponent = e;
+    }
+
+    /** Set the exponent of the value in SQUARE to VALUE (0 for empty),
+     *  keeping the Zobrist hash, the set of empty squares, the tile
+     *  counts, and the count of equal neighbors up to date. */
+    private void put(int square, int value) {
+        int old = _grid[square];
+        if (old == value) {
+            return;
+        }
+        _hash ^= zobristKey(square, old) ^ zobristKey(square, value);
+
+        int px = square / _size, py = square % _size;
+        _equalPairs += pairChange(px > 0 ? _grid[square - _size] : 0, old, value)
+            + pairChange(px < _size - 1 ? _grid[square + _size] : 0, old, value)
+            + pairChange(py > 0 ? _grid[square - 1] : 0, old, value)
+            + pairChange(py < _size - 1 ? _grid[square + 1] : 0, old, value);
+
+        if (old == 0) {
+            removeFree(square);
+        } else {
+            _counts[old] -= 1;
+        }
+        if (value == 0) {
+            addFree(square);
+        } else {
+            _counts[value] += 1;
+        }
+        _grid[square] = (byte) value;
+
+        if (value > _maxExponent) {
+            _maxExponent = value;
+        } else if (old == _maxExponent && _counts[old] == 0) {
+            int e = old;
+            while (e > 0 && _counts[e] == 0) {
+                e -= 1;
+            }
+            _maxExponent = e;
+        }
+    }
+
+    /** Add SQUARE to the empty squares. */
+    private void addFree(int square) {
+        _free[_emptyCount] = square;
+        _freeIndex[square] = _emptyCount;
+        _emptyCount += 1;
+    }
+
+    /** Remove SQUARE from the empty squares. */
+    private void removeFree(int square) {
+        int last = _free[_emptyCount - 1];
+        _free[_freeIndex[square]] = last;
+        _freeIndex[last] = _freeIndex[square];
+        _emptyCount -= 1;
+    }
+
+    /** Mark all squares as empty. */
+    private void resetFree() {
+        for (int square = 0; square < _free.length; square += 1) {
+            _free[square] = _freeIndex[square] = square;
+        }
+        _emptyCount = _free.length;
+    }
+
+    /** Return the change in the number of mergeable equal adjacent pairs
+     *  when a square next to one holding NEIGHBOR (0 if none) changes from
+     *  OLD to VALUE. */
+    private static int pairChange(int neighbor, int old, int value) {
+        if (neighbor == 0 || neighbor == MAX_EXPONENT) {
+            return 0;
+        }
+        return (neighbor == value ? 1 : 0) - (neighbor == old ? 1 : 0);
+    }
+
+    /** Return the Zobrist key for a tile with value 2^E (E = 0 for none)
+     *  in SQUARE. Keys are computed by a fixed mixing function rather
+     *  than drawn from a table, so boards of any size need no storage
+     *  for them and the same position always hashes the same way. */
+    private static long zobristKey(int square, int e) {
+        if (e == 0) {
+            return 0;
+        }
+        long z = ((long) square << 6 | e) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /** Copy the exponents of the tiles on the board (0 for an empty
+     *  square) into DEST, one byte per square in the order of _grid,
+     *  starting at OFFSET. This packs the whole position into size()^2
+     *  bytes. */
+    public void saveExponents(byte[] dest, int offset) {
+        System.arraycopy(_grid, 0, dest, offset, _grid.length);
+    }
+
+    /** Set the tiles on the board to the exponents in SRC starting at
+     *  OFFSET, as packed by saveExponents. Only the squares that differ
+     *  are touched, so restoring a position close to the current one is
+     *  cheap. No tile is marked as merged and the move log is cleared.
+     *  Throws IllegalArgumentException, leaving the board unchanged, if
+     *  any exponent is outside 0 .. MAX_EXPONENT. */
+    public void restoreExponents(byte[] src, int offset) {
+        for (int square = 0; square < _grid.length; square += 1) {
+            int e = src[offset + square];
+            if (e < 0 || e > MAX_EXPONENT) {
+                throw new IllegalArgumentException("bad exponent " + e
+                                                   + " for square " + square);
+            }
+        }
+        for (int square = 0; square < _grid.length; square += 1) {
+            int e = src[offset + square];
+            if (e != _grid[square]) {
+                put(square, e);
+                if (_values != null) {
+                    _values[square] = e == 0 ? null
+                        : Tile.ofExponent(e, square / _size,
+                                          square % _size);
+                }
+            }
+        }
+        resetMerged();
+        clearMoveLog();
+    }
+
+    /** Return the moves made since the last call to clearMoveLog, in
+     *  order. Each move of the tile at standard coordinates (FX, FY) to
+     *  (PX, PY) is packed as (FX * size() + FY) << 32
+     *  | (PX * size() + PY) << 1 | M, where M is 1 iff it was a merge. */
+    public long[] moveLog() {
+        return _moveLogSize == 0 ? NO_MOVES
+            : Arrays.copyOf(_moveLog, _moveLogSize);
+    }
+
+    /** Return the number of moves made since the last call to
+     *  clearMoveLog. */
+    public int moveLogSize() {
+        return _moveLogSize;
+    }
+
+    /** Return the Kth move made since the last call to clearMoveLog,
+     *  packed as for moveLog, without copying the log. */
+    public long loggedMove(int k) {
+        if (k < 0 || k >= _moveLogSize) {
+            throw new IndexOutOfBoundsException("no move " + k);
+        }
+        return _moveLog[k];
+    }
+
+    /** Forget all moves made so far. */
+    public void clearMoveLog() {
+        _moveLogSize = 0;
     }
 
     /** Resets all the merged booleans to false for every tile on the board. */
     public void resetMerged() {
-        for (int x = 0; x < size(); x += 1) {
-            for (int y = 0; y < size(); y += 1) {
-                if (_values[x][y] != null){
-                    _values[x][y].setMerged(false);
-                }
+        Arrays.fill(_merged, false);
+        if (_values == null) {
+            return;
+        }
+        for (Tile tile : _values) {
+            if (tile != null) {
+                tile.setMerged(false);
             }
         }
     }
 
+    /** Returns true iff O is a Board of the same size with the same tiles
+     *  in the same squares. */
+    @Override
+    public boolean equals(Object o) {
+        return (o instanceof Board b) && b._size == _size
+            && b._hash == _hash && Arrays.equals(_grid, b._grid);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(_hash);
+    }
+
     /** Returns the board as a string, used for debugging. */
     @Override
     public String toString() {
@@ -122,10 +692,10 @@ public class Board {
         out.format("%n[%n");
         for (int y = size() - 1; y >= 0; y -= 1) {
             for (int x = 0; x < size(); x += 1) {
-                if (tile(x, y) == null) {
+                if (exponent(x, y) == 0) {
                     out.format("|    ");
                 } else {
-                    out.format("|%4d", tile(x, y).value());
+                    out.format("|%4d", 1L << exponent(x, y));
                 }
             }
             out.format("|%n");
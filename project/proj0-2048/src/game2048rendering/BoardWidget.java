@@ -1,21 +1,41 @@
 package game2048rendering;
 
+import game2048logic.Metrics;
 import game2048logic.Model;
 import ucb.gui2.Pad;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongConsumer;
 
 import java.awt.Font;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.FontMetrics;
+import java.awt.image.BufferedImage;
+import javax.swing.Timer;
 
 import static java.lang.Math.max;
 import static java.lang.Math.abs;
 import static java.lang.Math.round;
 
 /** A widget that displays a 2048 board.
+ *
+ *  The board is drawn into an off-screen frame that persists between
+ *  repaints. The frame is divided into cells of TILE_SIDE_SEP pixels on
+ *  a side, one per square. On each animation tick, only the cells under
+ *  the moving or blooming tiles, before and after the tick, are redrawn,
+ *  and only those cells are repainted. Redrawing a cell copies it from a
+ *  cached image of the empty grid and then copies each tile over it from
+ *  a cached image of that tile.
+ *
+ *  Animation does not hold up the game. Each update queues an immutable
+ *  snapshot of the board, and a Swing timer animates the snapshots on
+ *  the event dispatch thread, one tick at a time.
  *  @author P. N. Hilfinger
  */
 class BoardWidget extends Pad {
@@ -40,6 +60,15 @@ class BoardWidget extends Pad {
     static final Font TILE_FONT3 = new Font("SansSerif", 1, 40);
     /** Font used for numbering on tiles with 4 digits. */
     static final Font TILE_FONT4 = new Font("SansSerif", 1, 32);
+    /** Size of font used for numbering on tiles with D > 4 digits is
+     *  TILE_FONT_SCALE / D. */
+    static final int TILE_FONT_SCALE = 128;
+
+    /** Text and background colors of tiles larger than any in
+     *  TILE_COLORS. */
+    static final Color[] BIG_TILE_COLORS = {
+        new Color(0xf9f6f2), new Color(0x3c3a32)
+    };
 
     /** Color for overlay text on board. */
     static final Color OVERLAY_COLOR = new Color(200, 0, 0, 64);
@@ -62,6 +91,9 @@ class BoardWidget extends Pad {
     /** Ticks over which a tile "blooms" out or in. */
     static final int BLOOM_TICKS = (int) (20.0 * BLOOM_TIME / TICK);
 
+    /** Largest amount added to the sides of a blooming tile (pixels). */
+    static final int MAX_BLOOM = round(TILE_SIDE * BLOOM_FACTOR);
+
     /** Mapping from numbers on tiles to their text and background
      *  colors. */
     static final HashMap<Integer, Color[]> TILE_COLORS = new HashMap<>();
@@ -97,22 +129,18 @@ class BoardWidget extends Pad {
         _size = size;
         _boardSide = size * TILE_SIDE_SEP + TILE_SEP;
         _tiles = new ArrayList<>();
+        _cells = _size + 1;
+        _dirty = new boolean[_cells * _cells];
+        _animated = new ArrayList<>();
+        _lastTiles = new ArrayList<>();
+        _timer = new Timer(TICK, e -> tick());
         setPreferredSize(_boardSide, _boardSide);
     }
 
     /** Render board on G. */
     @Override
-    public synchronized void paintComponent(Graphics2D g) {
-        g.setColor(EMPTY_SQUARE_COLOR);
-        g.fillRect(0, 0, _boardSide, _boardSide);
-        g.setColor(BAR_COLOR);
-        for (int k = 0; k <= _boardSide; k += TILE_SIDE_SEP) {
-            g.fillRect(0, k, _boardSide, TILE_SEP);
-            g.fillRect(k, 0, TILE_SEP, _boardSide);
-        }
-        for (Tile tile : _tiles) {
-            render(g, tile);
-        }
+    public void paintComponent(Graphics2D g) {
+        g.drawImage(frame(), 0, 0, null);
         if (_end) {
             g.setFont(OVERLAY_FONT);
             FontMetrics metrics = g.getFontMetrics();
@@ -124,8 +152,86 @@ class BoardWidget extends Pad {
         }
     }
 
-    /** Render TILE on G. */
-    private void render(Graphics2D g, Tile tile) {
+    /** Return the off-screen frame, drawing all of it if it does not yet
+     *  exist. */
+    private BufferedImage frame() {
+        if (_frame == null) {
+            _frame = new BufferedImage(_boardSide, _boardSide,
+                                       BufferedImage.TYPE_INT_RGB);
+            Arrays.fill(_dirty, true);
+            redrawDirty();
+        }
+        return _frame;
+    }
+
+    /** Return an image of the empty board. */
+    private BufferedImage grid() {
+        if (_grid == null) {
+            _grid = new BufferedImage(_boardSide, _boardSide,
+                                      BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = _grid.createGraphics();
+            g.setColor(EMPTY_SQUARE_COLOR);
+            g.fillRect(0, 0, _boardSide, _boardSide);
+            g.setColor(BAR_COLOR);
+            for (int k = 0; k <= _boardSide; k += TILE_SIDE_SEP) {
+                g.fillRect(0, k, _boardSide, TILE_SEP);
+                g.fillRect(k, 0, TILE_SEP, _boardSide);
+            }
+            g.dispose();
+        }
+        return _grid;
+    }
+
+    /** Return an image of a tile with value 2^E, with BLOOM
+     *  (0 <= BLOOM <= MAX_BLOOM) pixels added to each side. Each image is
+     *  drawn the first time it is needed and kept thereafter. */
+    private static BufferedImage sprite(int e, int bloom) {
+        BufferedImage[] sprites = SPRITES[e];
+        if (sprites == null) {
+            sprites = SPRITES[e] = new BufferedImage[MAX_BLOOM + 1];
+        }
+        if (sprites[bloom] == null) {
+            sprites[bloom] = drawSprite(e, bloom);
+        }
+        return sprites[bloom];
+    }
+
+    /** Return a new image of a tile with value 2^E with BLOOM pixels
+     *  added to each side. The label stays the same size as the tile
+     *  blooms. */
+    private static BufferedImage drawSprite(int e, int bloom) {
+        long value = 1L << e;
+        int side = TILE_SIDE + 2 * bloom;
+        BufferedImage sprite = new BufferedImage(side, side,
+                                                 BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = sprite.createGraphics();
+        String label = Long.toString(value);
+        if (value < 100) {
+            g.setFont(TILE_FONT2);
+        } else if (value < 1000) {
+            g.setFont(TILE_FONT3);
+        } else if (value < 10000) {
+            g.setFont(TILE_FONT4);
+        } else {
+            g.setFont(new Font("SansSerif", 1,
+                               TILE_FONT_SCALE / label.length()));
+        }
+        FontMetrics metrics = g.getFontMetrics();
+        Color[] colors = e >= Integer.SIZE - 1 ? BIG_TILE_COLORS
+            : TILE_COLORS.getOrDefault((int) value, BIG_TILE_COLORS);
+        g.setColor(colors[1]);
+        g.fillRect(0, 0, side, side);
+        g.setColor(colors[0]);
+        g.drawString(label,
+                     bloom + (TILE_SIDE - metrics.stringWidth(label)) / 2,
+                     bloom + (2 * TILE_SIDE + metrics.getMaxAscent()) / 4);
+        g.dispose();
+        return sprite;
+    }
+
+    /** Return the bounds of TILE in the current frame, as
+     *  { x, y, width, height } in pixels. */
+    private int[] bounds(Tile tile) {
         int col0 = tile.x(),
             row0 = tile.y(),
             col1 = tile.next().x(),
@@ -144,30 +250,113 @@ class BoardWidget extends Pad {
         int ulx = Math.round(vcol * TILE_SIDE_SEP + TILE_SEP),
             uly = Math.round((_size - vrow - 1) * TILE_SIDE_SEP + TILE_SEP);
 
-        if (tile.value() < 100) {
-            g.setFont(TILE_FONT2);
-        } else if (tile.value() < 1000) {
-            g.setFont(TILE_FONT3);
-        } else {
-            g.setFont(TILE_FONT4);
-        }
-        FontMetrics metrics = g.getFontMetrics();
         int bloom;
         if (_bloomingTiles != null && _bloomingTiles.contains(tile)) {
             bloom = _bloom;
         } else {
             bloom = 0;
         }
-        g.setColor(TILE_COLORS.get(tile.value())[1]);
-        g.fillRect(ulx - bloom, uly - bloom, 2 * bloom + TILE_SIDE,
-                   2 * bloom + TILE_SIDE);
-        g.setColor(TILE_COLORS.get(tile.value())[0]);
+        return new int[] { ulx - bloom, uly - bloom,
+                           2 * bloom + TILE_SIDE, 2 * bloom + TILE_SIDE };
+    }
 
-        String label = Integer.toString(tile.value());
-        g.drawString(label,
-                     ulx + (TILE_SIDE - metrics.stringWidth(label)) / 2,
-                     uly + (2 * TILE_SIDE + metrics.getMaxAscent()) / 4);
+    /** Mark the cells overlapped by the rectangle BOUNDS, given as
+     *  { x, y, width, height }, as needing to be redrawn. */
+    private void markDirty(int[] bounds) {
+        int c0 = max(0, bounds[0] / TILE_SIDE_SEP),
+            r0 = max(0, bounds[1] / TILE_SIDE_SEP),
+            c1 = Math.min(_cells - 1,
+                          (bounds[0] + bounds[2] - 1) / TILE_SIDE_SEP),
+            r1 = Math.min(_cells - 1,
+                          (bounds[1] + bounds[3] - 1) / TILE_SIDE_SEP);
+        for (int r = r0; r <= r1; r += 1) {
+            for (int c = c0; c <= c1; c += 1) {
+                _dirty[r * _cells + c] = true;
+            }
+        }
+    }
+
+    /** Mark the cells under each tile in TILES as needing to be redrawn. */
+    private void markDirty(Iterable<Tile> tiles) {
+        for (Tile tile : tiles) {
+            markDirty(bounds(tile));
+        }
+    }
+
+    /** Redraw the cells of the frame marked as dirty, request that they
+     *  be repainted, and mark them clean. Tiles are drawn in the order
+     *  of _tiles, so that where they overlap the result is the same as
+     *  drawing the whole board. */
+    private void redrawDirty() {
+        Graphics2D g = _frame.createGraphics();
+        BufferedImage grid = grid();
+        for (int r = 0; r < _cells; r += 1) {
+            for (int c = 0; c < _cells; c += 1) {
+                if (!_dirty[r * _cells + c]) {
+                    continue;
+                }
+                int c0 = c;
+                while (c + 1 < _cells && _dirty[r * _cells + c + 1]) {
+                    c += 1;
+                }
+                int x0 = c0 * TILE_SIDE_SEP, x1 = (c + 1) * TILE_SIDE_SEP,
+                    y0 = r * TILE_SIDE_SEP, y1 = y0 + TILE_SIDE_SEP;
+                g.drawImage(grid, x0, y0, x1, y1, x0, y0, x1, y1, null);
+                repaint(x0, y0, x1 - x0, y1 - y0);
+            }
+        }
+        for (Tile tile : _tiles) {
+            int[] bounds = bounds(tile);
+            int c0 = max(0, bounds[0] / TILE_SIDE_SEP),
+                r0 = max(0, bounds[1] / TILE_SIDE_SEP),
+                c1 = Math.min(_cells - 1,
+                              (bounds[0] + bounds[2] - 1) / TILE_SIDE_SEP),
+                r1 = Math.min(_cells - 1,
+                              (bounds[1] + bounds[3] - 1) / TILE_SIDE_SEP);
+            int dirty = 0;
+            for (int r = r0; r <= r1; r += 1) {
+                for (int c = c0; c <= c1; c += 1) {
+                    if (_dirty[r * _cells + c]) {
+                        dirty += 1;
+                    }
+                }
+            }
+            if (dirty == (r1 - r0 + 1) * (c1 - c0 + 1)) {
+                drawTile(g, tile, bounds);
+            } else if (dirty > 0) {
+                for (int r = r0; r <= r1; r += 1) {
+                    for (int c = c0; c <= c1; c += 1) {
+                        if (_dirty[r * _cells + c]) {
+                            g.setClip(c * TILE_SIDE_SEP, r * TILE_SIDE_SEP,
+                                      TILE_SIDE_SEP, TILE_SIDE_SEP);
+                            drawTile(g, tile, bounds);
+                        }
+                    }
+                }
+                g.setClip(null);
+            }
+        }
+        g.dispose();
+        Arrays.fill(_dirty, false);
+    }
 
+    /** Draw TILE on G within BOUNDS, given as { x, y, width, height }. */
+    private void drawTile(Graphics2D g, Tile tile, int[] bounds) {
+        g.drawImage(sprite(tile.exponent(), (bounds[2] - TILE_SIDE) / 2),
+                    bounds[0], bounds[1], null);
+    }
+
+    /** Redraw the parts of the frame covered by the tiles in _animated
+     *  before and after a change in _distMoved or _bloom made by CHANGE. */
+    private void animate(Runnable change) {
+        if (_frame == null) {
+            change.run();
+            return;
+        }
+        markDirty(_animated);
+        change.run();
+        markDirty(_animated);
+        redrawDirty();
     }
 
     /** Return the list of all Tiles in MODEL. */
@@ -189,74 +378,265 @@ class BoardWidget extends Pad {
     private ArrayList<Tile> newTiles(ArrayList<Tile> nextTiles) {
         ArrayList<Tile> bloomers = new ArrayList<>(nextTiles);
         for (Tile tile : _tiles) {
-            if (tile.next().value() == tile.value()) {
+            if (tile.next().exponent() == tile.exponent()) {
                 bloomers.remove(tile.next());
             }
         }
         return bloomers;
     }
 
-    /** Wait for one tick (TICK milliseconds). */
-    private void tick() {
-        try {
-            wait(TICK);
-        } catch (InterruptedException excp) {
-            assert false : "Internal error: unexpected interrupt";
+    /** Queue a snapshot of MODEL, which is assumed to reflect the next
+     *  state of the tiles after the completion of all movement, to be
+     *  animated. Returns at once; the animation runs on the event
+     *  dispatch thread. */
+    void update(Model model) {
+        enqueue(model);
+        _timer.start();
+    }
+
+    /** Add a snapshot of MODEL to the snapshots waiting to be shown. */
+    void enqueue(Model model) {
+        ArrayList<Tile> nextTiles = modelTiles(model);
+        _pending.add(new Snapshot(_lastTiles, nextTiles, model.score(),
+                                  model.gameOver()));
+        _lastTiles = nextTiles;
+    }
+
+    /** Arrange that LISTENER is called, on the event dispatch thread,
+     *  with the score of the model when each snapshot was taken, as the
+     *  animation of that snapshot finishes, so that the score shown keeps
+     *  pace with the board. Snapshots that are skipped to keep up with the
+     *  game are not reported. */
+    void setScoreListener(LongConsumer listener) {
+        _scoreListener = listener;
+    }
+
+    /** Return the tiles now displayed. */
+    ArrayList<Tile> shownTiles() {
+        return new ArrayList<>(_tiles);
+    }
+
+    /** Return true iff "GAME OVER" is now displayed. */
+    boolean gameOverShown() {
+        return _end;
+    }
+
+    /** The displayed state of the board after a change, with the moves
+     *  that led to it. The Tiles of a Snapshot are copies made when it
+     *  was taken, so that later changes to the board do not affect them,
+     *  and no one changes them afterward. */
+    private static class Snapshot {
+        /** A snapshot in which the tiles in PREVIOUS have moved to become
+         *  the tiles in NEXT, the score is SCORE, and the game is over
+         *  iff END. */
+        Snapshot(ArrayList<Tile> previous, ArrayList<Tile> next,
+                 long score, boolean end) {
+            IdentityHashMap<Tile, Tile> copies = new IdentityHashMap<>();
+            _moving = new ArrayList<>();
+            for (Tile tile : previous) {
+                Tile last = tile;
+                while (last.next() != last) {
+                    last = last.next();
+                }
+                Tile copy = copy(tile, copies);
+                if (last != tile) {
+                    copy.setNext(copy(last, copies));
+                }
+                _moving.add(copy);
+            }
+            _tiles = new ArrayList<>();
+            for (Tile tile : next) {
+                _tiles.add(copy(tile, copies));
+            }
+            _score = score;
+            _end = end;
         }
+
+        /** Return the copy of TILE in COPIES, adding one if needed. */
+        private static Tile copy(Tile tile, IdentityHashMap<Tile, Tile> copies) {
+            return copies.computeIfAbsent(
+                tile, t -> Tile.ofExponent(t.exponent(), t.x(), t.y()));
+        }
+
+        /** The tiles before the change, whose successors are the tiles
+         *  they moved to or merged with. */
+        private final ArrayList<Tile> _moving;
+        /** The tiles after the change. */
+        private final ArrayList<Tile> _tiles;
+        /** The score after the change. */
+        private final long _score;
+        /** True iff the game is over after the change. */
+        private final boolean _end;
     }
 
-    /** Create the blooming effect on tiles in BLOOMINGTILES. */
-    private void doBlooming(ArrayList<Tile> bloomingTiles) {
-        _bloomingTiles = bloomingTiles;
-        if (bloomingTiles.isEmpty()) {
-            return;
+    /** Advance the animation by one tick, taking the next snapshot from
+     *  _pending if there is no animation in progress. If newer snapshots
+     *  are waiting, the display jumps to the start of the newest one, so
+     *  that it does not fall behind the game. Return true iff there is
+     *  more to animate. */
+    boolean step() {
+        Snapshot newest = null;
+        int waiting = 0;
+        for (Snapshot s = _pending.poll(); s != null; s = _pending.poll()) {
+            newest = s;
+            waiting += 1;
         }
-        for (int k = 1; k <= BLOOM_TICKS; k += 1) {
-            _bloom = round(TILE_SIDE * BLOOM_FACTOR * k / BLOOM_TICKS);
-            repaint();
-            tick();
+        if (newest != null) {
+            start(newest, _current != null || waiting > 1);
+        }
+        if (_current == null) {
+            return false;
         }
-        for (int k = BLOOM_TICKS - 1; k >= 0; k -= 1) {
-            _bloom = round(TILE_SIDE * BLOOM_FACTOR * k / BLOOM_TICKS);
+        if (_distMoved < _moveDist) {
+            moveTo(Math.min(_moveDist,
+                            _distMoved + TICK * MOVE_DELTA / 1000.0f));
+        } else if (_bloomStep == 0) {
+            startBlooming(finishMove(_current._tiles));
+            _bloomStep = 1;
+        } else if (_bloomStep <= 2 * BLOOM_TICKS
+                   && !_bloomingTiles.isEmpty()) {
+            int k = _bloomStep <= BLOOM_TICKS ? _bloomStep
+                : 2 * BLOOM_TICKS - _bloomStep;
+            bloomTo(round(TILE_SIDE * BLOOM_FACTOR * k / BLOOM_TICKS));
+            _bloomStep += 1;
+        } else {
+            _bloomingTiles = null;
+            _animated = new ArrayList<>();
+            _end = _current._end;
+            _distMoved = 0.0f;
+            _scoreListener.accept(_current._score);
+            _current = null;
             repaint();
-            tick();
         }
-        _bloomingTiles = null;
+        return _current != null || !_pending.isEmpty();
     }
 
+    /** Respond to a tick of _timer. */
+    private void tick() {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        boolean more = step();
+        if (Metrics.ENABLED) {
+            Metrics.STEP_NANOS.record(System.nanoTime() - start);
+        }
+        if (!more) {
+            _timer.stop();
+            if (!_pending.isEmpty()) {
+                _timer.start();
+            }
+        }
+    }
 
-    /** Move tiles to their new positions and save a new set of tiles from
-     *  MODEL, which is assumed to reflect the next state of the tiles after
-     *  the completion of all movement. */
-    synchronized void update(Model model) {
-        float dist;
-        ArrayList<Tile> nextTiles = modelTiles(model);
+    /** Start animating SNAPSHOT. If JUMP, the display may not show the
+     *  tiles from which it starts, so redraw all of it. */
+    private void start(Snapshot snapshot, boolean jump) {
+        _current = snapshot;
+        _tiles = snapshot._moving;
+        _bloomStep = 0;
+        if (jump) {
+            _bloomingTiles = null;
+            _bloom = 0;
+            _distMoved = 0.0f;
+            if (_frame != null) {
+                Arrays.fill(_dirty, true);
+                redrawDirty();
+            }
+        }
+        _moveDist = startMove();
+    }
 
-        dist = 0.0f;
+    /** Prepare to move the displayed tiles toward their next positions.
+     *  Return the largest distance any of them moves. */
+    float startMove() {
+        float dist = 0.0f;
+        _animated = new ArrayList<>();
         for (Tile tile : _tiles) {
             dist = Math.max(dist, tile.distToNext());
+            if (tile.distToNext() > 0) {
+                _animated.add(tile);
+            }
         }
         _distMoved = 0.0f;
-        while (_distMoved < dist) {
-            repaint();
-            tick();
-            _distMoved = Math.min(dist,
-                                  _distMoved + TICK * MOVE_DELTA / 1000.0f);
-        }
+        return dist;
+    }
+
+    /** Show the moving tiles DIST rows or columns along their paths. */
+    void moveTo(float dist) {
+        animate(() -> _distMoved = dist);
+    }
 
+    /** Prepare to show the blooming effect on BLOOMINGTILES. */
+    void startBlooming(ArrayList<Tile> bloomingTiles) {
+        _bloomingTiles = new HashSet<>(bloomingTiles);
+        _animated = bloomingTiles;
+    }
+
+    /** Show the blooming tiles with BLOOM (<= MAX_BLOOM) pixels added to
+     *  each side. */
+    void bloomTo(int bloom) {
+        animate(() -> _bloom = bloom);
+    }
 
+    /** Replace the tiles displayed with NEXTTILES at the end of a move.
+     *  Return those of NEXTTILES that are newly created or the result of
+     *  merges. */
+    private ArrayList<Tile> finishMove(ArrayList<Tile> nextTiles) {
         ArrayList<Tile> bloomers = newTiles(nextTiles);
-        _tiles = nextTiles;
-        doBlooming(bloomers);
-        _end = model.gameOver();
-        _distMoved = 0.0f;
-        repaint();
+        HashSet<Tile> kept = new HashSet<>(nextTiles);
+        for (Tile tile : _tiles) {
+            if (!kept.contains(tile.next())) {
+                _animated.add(tile);
+            }
+        }
+        _animated.addAll(bloomers);
+        animate(() -> _tiles = nextTiles);
+        return bloomers;
     }
 
+    /** SPRITES[e][b] is the image of a tile with value 2^e with b pixels
+     *  added to each side, or null if it has not been drawn yet. */
+    private static final BufferedImage[][] SPRITES =
+        new BufferedImage[Board.MAX_EXPONENT + 1][];
+
+    /** Snapshots waiting to be animated, oldest first. Filled by the
+     *  thread playing the game and emptied on the event dispatch thread,
+     *  which is the only one that touches the fields below them. */
+    private final ConcurrentLinkedQueue<Snapshot> _pending =
+        new ConcurrentLinkedQueue<>();
+    /** The Tiles of the board when the last snapshot was taken. Used
+     *  only by the thread playing the game. */
+    private ArrayList<Tile> _lastTiles;
+    /** Timer that calls tick every TICK milliseconds while there is
+     *  something to animate. */
+    private final Timer _timer;
+    /** Told the score of each snapshot as its animation finishes. */
+    private LongConsumer _scoreListener = score -> { };
+
+    /** The snapshot being animated, or null if none. */
+    private Snapshot _current;
+    /** Distance the tiles of _current move, in rows and columns. */
+    private float _moveDist;
+    /** Number of steps of blooming done for _current, plus 1, or 0 if its
+     *  tiles have not finished moving. */
+    private int _bloomStep;
+
     /** A list of Tiles currently being displayed. */
     private ArrayList<Tile> _tiles;
+    /** Tiles whose position or size is changing in the current step of
+     *  an animation. */
+    private ArrayList<Tile> _animated;
+
+    /** The image of the board most recently drawn, or null if none has
+     *  been drawn. */
+    private BufferedImage _frame;
+    /** Image of the empty board, or null if not yet drawn. */
+    private BufferedImage _grid;
+    /** Number of rows and of columns of cells in the frame. */
+    private final int _cells;
+    /** _dirty[r * _cells + c] is true iff the cell in row R, column C
+     *  of the frame, counting from the upper left, must be redrawn. */
+    private final boolean[] _dirty;
     /** A list of Tiles currently being displayed with blooming effect. */
-    private ArrayList<Tile> _bloomingTiles;
+    private HashSet<Tile> _bloomingTiles;
 
     /** Distance tiles have moved toward their next positions, in units of
      *  rows and columns. */
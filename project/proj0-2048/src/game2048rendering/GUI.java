@@ -12,7 +12,7 @@ import java.awt.event.KeyEvent;
 /** The GUI controller for a 2048 board and buttons.
  *  @author P. N. Hilfinger
  */
-class GUI extends TopLevel {
+class GUI extends TopLevel implements MoveSource {
 
     /** A new window with given TITLE providing a view of MODEL. */
     GUI(String title, Model model) {
@@ -25,6 +25,7 @@ class GUI extends TopLevel {
         _model = model;
 
         _widget = new BoardWidget(model.size());
+        model.getBoard().setAnimated(true);
         add(_widget,
             new LayoutSpec("y", 0,
                            "height", "REMAINDER",
@@ -32,6 +33,7 @@ class GUI extends TopLevel {
 
         _widget.requestFocusInWindow();
         _widget.setKeyHandler("keypress", this::keyPressed);
+        _widget.setScoreListener(this::setScore);
         setPreferredFocus(_widget);
         setScore(0);
     }
@@ -67,8 +69,20 @@ class GUI extends TopLevel {
     }
 
     /** Return which direction arrow was pressed. */
-    String getKey() {
-        String command = readKey();
+    @Override
+    public String getKey() {
+        return translate(readKey());
+    }
+
+    @Override
+    public String pollKey() {
+        String command = _pendingKeys.poll();
+        return command == null ? null : translate(command);
+    }
+
+    /** Return the command that getKey reports for the pending event
+     *  COMMAND. */
+    private String translate(String command) {
         switch (command) {
             case "↑" -> command = "Up";
             case "→" -> command = "Right";
@@ -81,14 +95,16 @@ class GUI extends TopLevel {
     }
 
     /** Set the current score being displayed to SCORE. */
-    private void setScore(int score) {
+    private void setScore(long score) {
         setLabel("Score", String.format("Score: %6d", score));
     }
 
-    /** Plays an animation to update the GUI to the new state of the board. */
-    void update() {
+    /** Queues an animation to update the GUI to the new state of the
+     *  board, and returns without waiting for it. The score shown changes
+     *  when the animation finishes. */
+    @Override
+    public void update() {
         _widget.update(_model);
-        setScore(_model.score());
     }
 
     /** The board widget. */
@@ -1,9 +1,12 @@
 package game2048rendering;
 
+import game2048logic.Metrics;
 import game2048logic.Model;
+import game2048logic.MovePolicy;
+import game2048logic.ReplayLog;
+import game2048logic.TileSpawner;
 
 import java.awt.event.KeyEvent;
-import java.util.Random;
 
 import static game2048rendering.Side.*;
 
@@ -12,19 +15,32 @@ import static game2048rendering.Side.*;
 class Game {
 
 
-    /** Controller for a game represented by MODEL, using GUI as the
+    /** Controller for a game represented by MODEL, using INPUT as the
      *  source of key inputs. Uses SEED as the random seed. */
-    public Game(Model model, GUI gui, double tile2p, long seed) {
+    public Game(Model model, MoveSource input, double tile2p, long seed) {
+        this(model, input, null, tile2p, seed);
+    }
+
+    /** Controller for a game represented by MODEL, using AI to choose
+     *  moves while the game is in progress, and INPUT as the source of
+     *  all other key inputs. AI is ignored if null. Uses SEED as the
+     *  random seed. */
+    public Game(Model model, MoveSource input, MovePolicy ai, double tile2p,
+                long seed) {
+        this(model, input, ai, tile2p, seed, null);
+    }
+
+    /** Controller for a game as for Game(MODEL, INPUT, AI, TILE2P, SEED),
+     *  which records every new game, added tile and move in LOG, unless
+     *  it is null. */
+    public Game(Model model, MoveSource input, MovePolicy ai, double tile2p,
+                long seed, ReplayLog log) {
         _model = model;
+        _ai = ai;
         _playing = true;
-        _gui = gui;
-        _probOf2 = tile2p;
-
-        if (seed == 0) {
-            _random = new Random();
-        } else {
-            _random = new Random(seed);
-        }
+        _input = input;
+        _spawner = new TileSpawner(tile2p, seed);
+        _log = log;
     }
 
     /** Return true iff we have not received a Quit command. */
@@ -39,24 +55,29 @@ class Game {
 
         if (!hotStart) {
             _model.clear();
-            _model.addTile(getValidNewTile());
+            if (_log != null) {
+                _log.newGame();
+            }
+            addTile(getValidNewTile());
+        } else if (_log != null) {
+            _log.position(_model);
         }
         while (_playing) {
             if (!hotStart) {
                 if (!_model.gameOver()) {
-                    _model.addTile(getValidNewTile());
-                    _gui.update();
+                    addTile(getValidNewTile());
+                    _input.update();
                 }
             }
             if (hotStart) {
-                _gui.update();
+                _input.update();
                 hotStart = false;
             }
 
             boolean moved;
             moved = false;
             while (!moved) {
-                String cmnd = _gui.getKey();
+                String cmnd = nextCommand();
                 switch (cmnd) {
                     case "Quit":
                         _playing = false;
@@ -65,17 +86,18 @@ class Game {
                         return;
                     case KeyEvent.VK_UP + "": case KeyEvent.VK_DOWN + "": case KeyEvent.VK_LEFT + "": case KeyEvent.VK_RIGHT+ "":
                     case "\u2190": case "\u2191": case "\u2192": case "\u2193":
+                    case "Up": case "Down": case "Left": case "Right":
                         if (!_model.gameOver()) {
-                            _gui.update();
+                            _input.update();
                             moved = false;
                         }
 
-                        String stateBefore = _model.toString();
-                        _model.tiltWrapper(keyToSide(cmnd));
-                        String stateAfter = _model.toString();
-
-                        if (!stateBefore.equals(stateAfter)) {
-                            _gui.update();
+                        Side side = keyToSide(cmnd);
+                        if (_model.tiltWrapper(side).moved()) {
+                            if (_log != null) {
+                                _log.tilt(side);
+                            }
+                            _input.update();
                             moved = true;
                         }
 
@@ -88,51 +110,68 @@ class Game {
         }
     }
 
+    /** Return the next command: a command already waiting from our
+     *  input, such as "Quit" or "New Game", then the AI player's move if
+     *  there is one, and otherwise the next key from our input. */
+    private String nextCommand() {
+        if (_ai != null && !_model.gameOver()) {
+            String waiting = _input.pollKey();
+            if (waiting != null) {
+                return waiting;
+            }
+            Side side = _ai.bestMove(_model);
+            if (side != null) {
+                return MoveSource.keyOf(side);
+            }
+        }
+        return _input.getKey();
+    }
+
     /** Return the side indicated by KEY ("Up", "Down", "Left",
      *  or "Right"). */
     private Side keyToSide(String key) {
         return switch (key) {
-            case KeyEvent.VK_UP + "", "\u2191" -> NORTH;
-            case KeyEvent.VK_DOWN + "", "\u2193" -> SOUTH;
-            case KeyEvent.VK_LEFT + "", "\u2190" -> WEST;
-            case KeyEvent.VK_RIGHT+ "", "\u2192" -> EAST;
+            case KeyEvent.VK_UP + "", "\u2191", "Up" -> NORTH;
+            case KeyEvent.VK_DOWN + "", "\u2193", "Down" -> SOUTH;
+            case KeyEvent.VK_LEFT + "", "\u2190", "Left" -> WEST;
+            case KeyEvent.VK_RIGHT+ "", "\u2192", "Right" -> EAST;
             default -> throw new IllegalArgumentException("unknown key designation");
         };
     }
 
-    /** Return a valid tile, using our source's tile input until finding
-     *  one that fits on the current board. Assumes there is at least one
-     *  empty square on the board. */
-    private Tile getValidNewTile() {
-        while (true) {
-            Tile tile = generateNewTile(_model.size());
-            if (_model.tile(tile.x(), tile.y()) == null) {
-                return tile;
-            }
+    /** Add TILE to the board, recording it in the log. */
+    private void addTile(Tile tile) {
+        _model.addTile(tile);
+        if (_log != null) {
+            _log.addTile(tile.value(), tile.x(), tile.y());
         }
     }
 
-    /** Return a randomly positioned tile with either value of 2 with
-     * probability _probOf2 or a value of 4 with probability 1 - _probOf2 in a
-     * board with size SIZE. */
-    private Tile generateNewTile(int size) {
-        int c = _random.nextInt(size), r = _random.nextInt(size);
-        int v = _random.nextDouble() <= _probOf2 ? 2 : 4;
-
-        return Tile.create(v, c, r);
+    /** Return a valid tile from our spawner that fits on the current
+     *  board: a tile with value 2 with probability tile2p or 4 otherwise,
+     *  at a random empty square. Assumes there is at least one empty
+     *  square on the board. */
+    private Tile getValidNewTile() {
+        if (Metrics.ENABLED) {
+            Metrics.NEW_TILES.increment();
+        }
+        return _spawner.newTile(_model);
     }
 
     /** The playing board. */
     private final Model _model;
 
-    /** GUI from which random commands are collected. */
-    private final GUI _gui;
+    /** Source from which commands are collected. */
+    private final MoveSource _input;
+
+    /** Automated player that chooses moves, or null if the user does. */
+    private final MovePolicy _ai;
 
-    /** Probability that the next tile is 2, rather than a 4. */
-    private final double _probOf2;
+    /** Source of the random tiles added after each move. */
+    private final TileSpawner _spawner;
 
-    /** Source of random numbers. */
-    private final Random _random;
+    /** Record of the session, or null if none is kept. */
+    private final ReplayLog _log;
 
     /** True while user is still willing to play. */
     private boolean _playing;
@@ -0,0 +1,97 @@
+package game2048rendering;
+
+import game2048logic.AIPlayer;
+import game2048logic.Model;
+import game2048logic.MovePolicy;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/** Plays 2048 without a display, as fast as its commands arrive. No
+ *  Swing or AWT classes are loaded, so it runs on machines without a
+ *  display.
+ *
+ *  Usage: java game2048rendering.HeadlessMain [SCRIPT [SIZE [SEED]]],
+ *  where SCRIPT is a file of commands as read by ScriptMoveSource, "-"
+ *  (the default) for commands from the standard input, or "ai" for moves
+ *  chosen by an AIPlayer.
+ */
+public class HeadlessMain {
+
+    /** Play games on MODEL with commands from INPUT, new tiles being 2
+     *  with probability TILE2P, chosen using SEED, until INPUT commands
+     *  "Quit". Return the number of commands read. */
+    public static long play(Model model, MoveSource input, double tile2p,
+                            long seed) {
+        return play(model, input, null, tile2p, seed);
+    }
+
+    /** Play games as for play(MODEL, INPUT, TILE2P, SEED), with AI
+     *  choosing the moves while a game is in progress unless INPUT has a
+     *  command waiting. AI is ignored if null. Return the number of
+     *  commands read from INPUT. */
+    public static long play(Model model, MoveSource input, MovePolicy ai,
+                            double tile2p, long seed) {
+        long[] commands = { 0 };
+        MoveSource counted = new MoveSource() {
+            @Override
+            public String getKey() {
+                commands[0] += 1;
+                return input.getKey();
+            }
+
+            @Override
+            public String pollKey() {
+                String key = input.pollKey();
+                commands[0] += key == null ? 0 : 1;
+                return key;
+            }
+        };
+        Game game = new Game(model, counted, ai, tile2p, seed);
+        while (game.playing()) {
+            game.playGame(false);
+        }
+        return commands[0];
+    }
+
+    public static void main(String[] args) throws IOException {
+        String script = args.length > 0 ? args[0] : "-";
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+
+        Model model = new Model(size);
+        Reader reader = null;
+        MoveSource input;
+        switch (script) {
+            case "-" -> input = ScriptMoveSource.stdin();
+            case "ai" -> input = new PolicyMoveSource(
+                new AIPlayer(TILE2_PROBABILITY, AI_MOVES_PER_SECOND), model);
+            default -> {
+                reader = Files.newBufferedReader(Path.of(script));
+                input = new ScriptMoveSource(reader);
+            }
+        }
+        try {
+            long start = System.nanoTime();
+            long commands = play(model, input, TILE2_PROBABILITY, seed);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d commands in %.3f s (%.0f/s)%n", commands,
+                              seconds, commands / seconds);
+            System.out.printf("final score %d, largest tile %d%n",
+                              model.score(),
+                              1L << model.getBoard().maxExponent());
+        } finally {
+            if (reader != null) {
+                reader.close();
+            }
+        }
+    }
+
+    /** Probability of choosing 2 as random tile (as opposed to 4). */
+    private static final double TILE2_PROBABILITY = 0.9;
+
+    /** Moves per second the AIPlayer aims for. */
+    private static final double AI_MOVES_PER_SECOND = 1000.0;
+}
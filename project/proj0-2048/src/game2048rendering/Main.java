@@ -1,6 +1,13 @@
 package game2048rendering;
 
+import game2048logic.AIPlayer;
 import game2048logic.Model;
+import game2048logic.MovePolicy;
+import game2048logic.ReplayLog;
+import game2048logic.Solver;
+
+import java.io.IOException;
+import java.nio.file.Path;
 
 /** The main class for the 2048 game.
  *  @author P. N. Hilfinger
@@ -18,6 +25,21 @@ public class Main {
     /** If true, the custom start is used. Otherwise, the board starts off blank. */
     static final boolean USE_CUSTOM_START = false;
 
+    /** If true, an AIPlayer chooses the moves (4x4 boards only). */
+    static final boolean USE_AI_PLAYER = false;
+
+    /** Number of moves per second the AIPlayer aims to make. */
+    static final double AI_MOVES_PER_SECOND = 10.0;
+
+    /** File in which to record the session for ReplayRunner, or null to
+     *  keep no record. */
+    static final String REPLAY_LOG = null;
+
+    /** Table of solved positions written by Solver, or null for none. If
+     *  given, moves are chosen from the table instead of by the AIPlayer
+     *  wherever it has a solution, and otherwise by the user. */
+    static final String SOLVER_TABLE = null;
+
     /** Custom starting state of the game. Useful for debugging. */
     static final Model CUSTOM_START = new Model(new int[][]{
             {2, 0, 2, 128},
@@ -26,24 +48,34 @@ public class Main {
             {4, 64, 8, 256},
     }, 0);
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         Model model = USE_CUSTOM_START ? CUSTOM_START : new Model(BOARD_SIZE);
 
         GUI gui = new GUI("2048 61B", model);
         gui.display(true);
 
-        Game game = new Game(model, gui, TILE2_PROBABILITY, RANDOM_SEED);
-        try {
+        MovePolicy ai = USE_AI_PLAYER
+            ? new AIPlayer(TILE2_PROBABILITY, AI_MOVES_PER_SECOND) : null;
+        if (SOLVER_TABLE != null) {
+            ai = Solver.open(Path.of(SOLVER_TABLE));
+        }
+        int status = 0;
+        try (ReplayLog log = REPLAY_LOG == null ? null
+                 : new ReplayLog(Path.of(REPLAY_LOG), model.size(),
+                                 model.maxPiece(), RANDOM_SEED,
+                                 TILE2_PROBABILITY)) {
+            Game game = new Game(model, gui, ai, TILE2_PROBABILITY,
+                                 RANDOM_SEED, log);
             game.playGame(USE_CUSTOM_START);
             while (game.playing()) {
                 game.playGame(false);
             }
         } catch (IllegalStateException excp) {
             System.err.printf("Internal error: %s%n", excp.getMessage());
-            System.exit(1);
+            status = 1;
         }
 
-        System.exit(0);
+        System.exit(status);
     }
 
 }
@@ -0,0 +1,34 @@
+package game2048rendering;
+
+/** A source of the commands that drive a Game. Commands are strings in
+ *  the vocabulary of GUI: the key code of an arrow key (as from
+ *  KeyEvent.getKeyCode), an arrow character (U+2190 to U+2193), one of
+ *  "Up", "Right", "Down" or "Left", "New Game" or "Quit". Other commands
+ *  are ignored. */
+public interface MoveSource {
+
+    /** Return the next command, waiting for it as necessary. */
+    String getKey();
+
+    /** Return the next command if one is already waiting, and otherwise
+     *  null, without waiting. Sources that cannot tell whether a command
+     *  is waiting return null. */
+    default String pollKey() {
+        return null;
+    }
+
+    /** Show the current state of the game, if this source has a display.
+     *  Called after each change to the board. */
+    default void update() {
+    }
+
+    /** Return the arrow character that commands a tilt toward SIDE. */
+    static String keyOf(Side side) {
+        return switch (side) {
+            case NORTH -> "\u2191";
+            case SOUTH -> "\u2193";
+            case WEST -> "\u2190";
+            case EAST -> "\u2192";
+        };
+    }
+}
@@ -0,0 +1,30 @@
+package game2048rendering;
+
+import game2048logic.Model;
+import game2048logic.MovePolicy;
+
+/** A MoveSource whose commands are the moves a MovePolicy chooses for a
+ *  Model. When the game is over, or the policy gives up, it commands
+ *  "Quit". */
+public class PolicyMoveSource implements MoveSource {
+
+    /** A source of the moves POLICY chooses in MODEL. */
+    public PolicyMoveSource(MovePolicy policy, Model model) {
+        _policy = policy;
+        _model = model;
+    }
+
+    @Override
+    public String getKey() {
+        if (_model.gameOver()) {
+            return "Quit";
+        }
+        Side side = _policy.bestMove(_model);
+        return side == null ? "Quit" : MoveSource.keyOf(side);
+    }
+
+    /** Chooses the moves. */
+    private final MovePolicy _policy;
+    /** The game being played. */
+    private final Model _model;
+}
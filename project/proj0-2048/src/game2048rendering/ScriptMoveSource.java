@@ -0,0 +1,43 @@
+package game2048rendering;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+
+/** A MoveSource that reads its commands from a script, one per line.
+ *  Leading and trailing blanks are ignored, as are empty lines and lines
+ *  starting with '#'. The end of the script reads as "Quit". */
+public class ScriptMoveSource implements MoveSource {
+
+    /** A source reading commands from INPUT. */
+    public ScriptMoveSource(Reader input) {
+        _input = input instanceof BufferedReader buffered ? buffered
+            : new BufferedReader(input);
+    }
+
+    /** Return a source reading commands from the standard input. */
+    public static ScriptMoveSource stdin() {
+        return new ScriptMoveSource(new InputStreamReader(System.in));
+    }
+
+    @Override
+    public String getKey() {
+        try {
+            for (String line = _input.readLine(); line != null;
+                 line = _input.readLine()) {
+                line = line.strip();
+                if (!line.isEmpty() && line.charAt(0) != '#') {
+                    return line;
+                }
+            }
+            return "Quit";
+        } catch (IOException excp) {
+            throw new UncheckedIOException(excp);
+        }
+    }
+
+    /** The script. */
+    private final BufferedReader _input;
+}
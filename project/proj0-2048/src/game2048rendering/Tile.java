@@ -5,11 +5,11 @@ package game2048rendering;
  */
 public class Tile {
 
-    /** A new tile with VALUE as its value at (x, y).  This
+    /** A new tile with value 2^EXPONENT at (x, y).  This
      *  constructor is private, so all tiles are created by the
-     *  factory method create. */
-    private Tile(int value, int x, int y) {
-        this._value = value;
+     *  factory methods create and ofExponent. */
+    private Tile(int exponent, int x, int y) {
+        this._exponent = exponent;
         this._x = x;
         this._y = y;
         this._next = null;
@@ -26,18 +26,23 @@ public class Tile {
     }
 
     /** Return my current y-coordinate. */
-    int y() {
+    public int y() {
         return _y;
     }
 
     /** Return my current x-coordinate. */
-    int x() {
+    public int x() {
         return _x;
     }
 
-    /** Return the value supplied to my constructor. */
-    public int value() {
-        return _value;
+    /** Return my value. */
+    public long value() {
+        return 1L << _exponent;
+    }
+
+    /** Return the exponent of my value, e for a value of 2^e. */
+    public int exponent() {
+        return _exponent;
     }
 
     /** Return my next state.  Before I am moved or merged, I am my
@@ -51,9 +56,24 @@ public class Tile {
         _next = otherTile;
     }
 
-    /** Return a new tile at (x, y) with value VALUE. */
-    public static Tile create(int value, int x, int y) {
-        return new Tile(value, x, y);
+    /** Return a new tile at (x, y) with value VALUE, a power of 2 no
+     *  larger than 2^Board.MAX_EXPONENT. */
+    public static Tile create(long value, int x, int y) {
+        if (value < 2 || Long.bitCount(value) != 1) {
+            throw new IllegalArgumentException(
+                "tile value must be a power of 2: " + value);
+        }
+        return ofExponent(Long.numberOfTrailingZeros(value), x, y);
+    }
+
+    /** Return a new tile at (x, y) with value 2^EXPONENT, where
+     *  0 < EXPONENT <= Board.MAX_EXPONENT. */
+    public static Tile ofExponent(int exponent, int x, int y) {
+        if (exponent <= 0 || exponent > Board.MAX_EXPONENT) {
+            throw new IllegalArgumentException(
+                "bad tile exponent: " + exponent);
+        }
+        return new Tile(exponent, x, y);
     }
 
     /** Return the distance in rows or columns between me and my successor
@@ -72,8 +92,8 @@ public class Tile {
         return String.format("Tile %d at position (%d, %d)", value(), x(), y());
     }
 
-    /** My value. */
-    private final int _value;
+    /** The exponent of my value. */
+    private final int _exponent;
 
     /** My last position on the board. */
     private final int _x;
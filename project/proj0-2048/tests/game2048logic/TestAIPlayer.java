@@ -0,0 +1,88 @@
+package game2048logic;
+import game2048rendering.Side;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+/** Tests the move choices of AIPlayer. */
+@Timeout(value = 60, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+public class TestAIPlayer {
+
+    /** A player whose shallow searches always finish in time, so that its
+     *  choices do not depend on the speed of the machine. */
+    private static AIPlayer shallowPlayer() {
+        return new AIPlayer(0.9, 1.0, 2, ForkJoinPool.commonPool());
+    }
+
+    /** There is no move on a board where no tilt changes anything. */
+    @Test
+    @Tag("ai")
+    @DisplayName("No move when game over")
+    public void testNoMove() {
+        Model model = new Model(new int[][]{
+                {2, 4, 2, 4},
+                {4, 2, 4, 2},
+                {2, 4, 2, 4},
+                {4, 2, 4, 2}
+        }, 0);
+        assertWithMessage("No tilt changes the board:" + model)
+                .that(shallowPlayer().bestMove(model)).isNull();
+    }
+
+    /** The only legal move is chosen. */
+    @Test
+    @Tag("ai")
+    @DisplayName("Only legal move")
+    public void testOnlyMove() {
+        Model model = new Model(new int[][]{
+                {2, 4, 2, 4},
+                {4, 2, 4, 2},
+                {2, 4, 2, 4},
+                {4, 2, 4, 0}
+        }, 0);
+        Side move = shallowPlayer().bestMove(model);
+        assertWithMessage("Only a tilt right or down changes the board:" + model)
+                .that(move == Side.EAST || move == Side.SOUTH).isTrue();
+    }
+
+    /** The player does much better than chance over a whole game. */
+    @Test
+    @Tag("ai")
+    @DisplayName("Plays a full game")
+    public void testPlaysGame() {
+        AIPlayer ai = shallowPlayer();
+        Random random = new Random(2048);
+        BitboardModel model = new BitboardModel();
+        spawn(model, random);
+        spawn(model, random);
+        for (Side move = ai.bestMove(model); move != null && !model.gameOver();
+             move = ai.bestMove(model)) {
+            model.tilt(move);
+            spawn(model, random);
+        }
+        int max = 0;
+        for (int x = 0; x < model.size(); x += 1) {
+            for (int y = 0; y < model.size(); y += 1) {
+                max = Math.max(max, model.value(x, y));
+            }
+        }
+        assertWithMessage("Largest tile reached:" + model).that(max).isAtLeast(512);
+    }
+
+    /** Add a random tile to an empty square of MODEL, using RANDOM. */
+    private static void spawn(BitboardModel model, Random random) {
+        while (true) {
+            int x = random.nextInt(4), y = random.nextInt(4);
+            if (model.value(x, y) == 0) {
+                model.addTile(random.nextDouble() <= 0.9 ? 2 : 4, x, y);
+                return;
+            }
+        }
+    }
+}
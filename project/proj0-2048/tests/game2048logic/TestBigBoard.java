@@ -0,0 +1,239 @@
+package game2048logic;
+import game2048rendering.Board;
+import game2048rendering.Side;
+import game2048rendering.Tile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static game2048logic.TestUtils.checkTilt;
+
+/** Tests models on large boards, with scores and tile values too large
+ *  for an int, and with winning tiles other than 2048. */
+@Timeout(value = 60, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+public class TestBigBoard {
+
+    /** Return a SIZE x SIZE board, laid out as for Model(int[][], long),
+     *  with VALUE in every square of the rows numbered from ROW0 to
+     *  ROW1 - 1, counting from the top, and 0 elsewhere. */
+    private static int[][] rows(int size, int row0, int row1, int value) {
+        int[][] result = new int[size][size];
+        for (int r = row0; r < row1; r += 1) {
+            Arrays.fill(result[r], value);
+        }
+        return result;
+    }
+
+    /** A full 64 x 64 board of 2s merges into the upper half. */
+    @Test
+    @Tag("big-board")
+    @DisplayName("64x64 board of 2s tilts up")
+    public void testFullTilt() {
+        checkTilt(new Model(rows(64, 0, 64, 2), 0),
+                  new Model(rows(64, 0, 32, 4), 64 * 32 * 4), Side.NORTH);
+    }
+
+    /** Two far-apart tiles in every row of a 64 x 64 board merge at the
+     *  left edge. */
+    @Test
+    @Tag("big-board")
+    @DisplayName("64x64 rows merge left")
+    public void testSideTilt() {
+        int[][] before = new int[64][64], after = new int[64][64];
+        for (int r = 0; r < 64; r += 1) {
+            before[r][63] = before[r][40] = 8;
+            after[r][0] = 16;
+        }
+        checkTilt(new Model(before, 0), new Model(after, 64 * 16), Side.WEST);
+    }
+
+    /** Scores pass the largest int without overflowing. */
+    @Test
+    @Tag("big-board")
+    @DisplayName("Long scores")
+    public void testLongScore() {
+        long start = Integer.MAX_VALUE - 10L;
+        checkTilt(new Model(rows(32, 30, 32, 1 << 20), start),
+                  new Model(rows(32, 0, 1, 1 << 21), start + 32L * (1 << 21)),
+                  Side.NORTH);
+    }
+
+    /** Tiles can grow past the largest int, and the score includes them. */
+    @Test
+    @Tag("big-board")
+    @DisplayName("Tile values past int")
+    public void testHugeTiles() {
+        Model model = new Model(rows(8, 6, 8, 1 << 30), 0);
+        model.tiltWrapper(Side.SOUTH);
+        assertWithMessage("Score:" + model).that(model.score())
+                .isEqualTo(8L << 31);
+        assertWithMessage("Exponent of merged tile:" + model)
+                .that(model.getBoard().exponent(0, 0)).isEqualTo(31);
+        assertWithMessage("Largest exponent:" + model)
+                .that(model.getBoard().maxExponent()).isEqualTo(31);
+        assertWithMessage("Empty squares:" + model)
+                .that(model.getBoard().emptyCount()).isEqualTo(64 - 8);
+        model.tiltWrapper(Side.WEST);
+        assertWithMessage("Exponent after second merge:" + model)
+                .that(model.getBoard().exponent(0, 0)).isEqualTo(32);
+        assertWithMessage("Score after second merge:" + model)
+                .that(model.score()).isEqualTo((8L << 31) + (4L << 32));
+    }
+
+    /** The game ends when the configured winning tile appears. */
+    @Test
+    @Tag("big-board")
+    @DisplayName("Configurable winning tile")
+    public void testWinningTile() {
+        int[][] raw = new int[16][16];
+        raw[0][0] = 2048;
+        raw[0][1] = 2;
+        Model model = new Model(raw, 0, 1 << 20);
+        assertWithMessage("2048 does not win when 2^20 does:" + model)
+                .that(model.gameOver()).isFalse();
+        raw[5][5] = 1 << 20;
+        model = new Model(raw, 0, 1 << 20);
+        assertWithMessage("2^20 wins:" + model).that(model.maxTileExists())
+                .isTrue();
+        assertWithMessage("Default winning tile").that(new Model(4).maxPiece())
+                .isEqualTo(Model.MAX_PIECE);
+        assertWithMessage("Same tiles, different winning tile")
+                .that(new Model(16, 1 << 20)).isNotEqualTo(new Model(16));
+    }
+
+    /** A random game on a 64 x 64 board keeps the board's bookkeeping
+     *  consistent with its contents. */
+    @Test
+    @Tag("big-board")
+    @DisplayName("Random game on 64x64")
+    public void testRandomGame() {
+        Model model = new Model(64);
+        TileSpawner spawner = new TileSpawner(0.9, 64);
+        Random random = new Random(64);
+        model.addTile(spawner.newTile(model));
+        long score = 0;
+        for (int move = 0; move < 2000 && !model.gameOver(); move += 1) {
+            TiltResult result =
+                model.tiltWrapper(Side.values()[random.nextInt(4)]);
+            score += result.scoreDelta();
+            if (model.emptySpaceExists()) {
+                model.addTile(spawner.newTile(model));
+            }
+        }
+        assertWithMessage("Sum of score deltas").that(model.score())
+                .isEqualTo(score);
+        int empty = 0;
+        for (int x = 0; x < 64; x += 1) {
+            for (int y = 0; y < 64; y += 1) {
+                empty += model.getBoard().exponent(x, y) == 0 ? 1 : 0;
+            }
+        }
+        assertWithMessage("Empty squares").that(model.getBoard().emptyCount())
+                .isEqualTo(empty);
+    }
+
+    /** Tiles too large for an int move and merge on an animated board,
+     *  and may be the winning tile. */
+    @Test
+    @Tag("big-board")
+    @DisplayName("Huge tiles on an animated board")
+    public void testHugeAnimatedTiles() {
+        Model model = new Model(4, 1L << Board.MAX_EXPONENT);
+        model.getBoard().setAnimated(true);
+        model.addTile(Tile.create(1L << 40, 0, 0));
+        model.addTile(Tile.create(1L << 40, 0, 3));
+        model.addTile(Tile.ofExponent(Board.MAX_EXPONENT - 1, 2, 1));
+        model.addTile(Tile.ofExponent(Board.MAX_EXPONENT - 1, 2, 2));
+        model.tiltWrapper(Side.NORTH);
+        assertWithMessage("merged tile").that(model.tile(0, 3).value())
+                .isEqualTo(1L << 41);
+        assertWithMessage("largest tile").that(model.tile(2, 3).exponent())
+                .isEqualTo(Board.MAX_EXPONENT);
+        assertWithMessage("score").that(model.score())
+                .isEqualTo((1L << 41) + (1L << Board.MAX_EXPONENT));
+        assertWithMessage("2^62 wins").that(model.gameOver()).isTrue();
+    }
+
+    /** Values that are not powers of 2 are rejected. */
+    @Test
+    @Tag("big-board")
+    @DisplayName("Bad tile values")
+    public void testBadValues() {
+        for (int value : new int[] { 1, 3, 6, -2 }) {
+            int[][] raw = new int[2][2];
+            raw[0][0] = value;
+            assertThrows(IllegalArgumentException.class,
+                         () -> new Model(raw, 0));
+            assertThrows(IllegalArgumentException.class,
+                         () -> Tile.create(value, 0, 0));
+            assertThrows(IllegalArgumentException.class,
+                         () -> new Model(2, value));
+        }
+        assertThrows(IllegalArgumentException.class,
+                     () -> new Model(2, Long.MIN_VALUE));
+        assertThrows(IllegalArgumentException.class,
+                     () -> Tile.ofExponent(Board.MAX_EXPONENT + 1, 0, 0));
+    }
+
+    /** Return a SIZE x SIZE model with exponents EXPONENTS, packed as by
+     *  Board.saveExponents, which is won only by a 2^MAX_EXPONENT tile. */
+    private static Model packed(int size, int... exponents) {
+        byte[] grid = new byte[exponents.length];
+        for (int s = 0; s < grid.length; s += 1) {
+            grid[s] = (byte) exponents[s];
+        }
+        Model model = new Model(size, 1L << Board.MAX_EXPONENT);
+        model.getBoard().restoreExponents(grid, 0);
+        return model;
+    }
+
+    /** Checks that legalMoves, successor and tiltWrapper agree on MODEL
+     *  about which tilts change it, and that LEGAL are those tilts. */
+    private static void checkLegal(Model model, Side... legal) {
+        assertWithMessage("legal moves of" + model).that(model.legalMoves())
+                .containsExactlyElementsIn(legal).inOrder();
+        for (Side side : Side.values()) {
+            boolean isLegal = model.legalMoves().contains(side);
+            assertWithMessage("successor " + side + " of" + model)
+                    .that(model.successor(side) != null).isEqualTo(isLegal);
+            assertWithMessage("tilt " + side + " of" + model)
+                    .that(model.copy().tiltWrapper(side).moved())
+                    .isEqualTo(isLegal);
+        }
+    }
+
+    /** Two tiles of value 2^MAX_EXPONENT never merge, in any engine. */
+    @Test
+    @Tag("big-board")
+    @DisplayName("Largest tiles do not merge")
+    public void testLargestTilesDoNotMerge() {
+        int top = Board.MAX_EXPONENT;
+        Model full = packed(2, top, top, 1, 2);
+        assertWithMessage("equal neighbors of" + full)
+                .that(full.getBoard().hasEqualNeighbors()).isFalse();
+        assertWithMessage("a move exists in" + full)
+                .that(full.atLeastOneMoveExists()).isFalse();
+        checkLegal(full);
+        full.tiltWrapper(Side.NORTH);
+        assertWithMessage("score after tilting" + full).that(full.score())
+                .isEqualTo(0);
+
+        Model apart = packed(2, top, 0, 0, top);
+        apart.tiltWrapper(Side.WEST);
+        assertWithMessage("equal neighbors after tilt of" + apart)
+                .that(apart.getBoard().hasEqualNeighbors()).isFalse();
+        checkLegal(apart, Side.EAST);
+
+        Model line = packed(3, top, top, top - 1, 0, 0, top - 1, 0, 0, 0);
+        checkLegal(line, Side.EAST, Side.SOUTH, Side.WEST);
+        assertWithMessage("points of EAST tilt of" + line)
+                .that(line.tiltWrapper(Side.EAST).scoreDelta())
+                .isEqualTo(1L << top);
+    }
+}
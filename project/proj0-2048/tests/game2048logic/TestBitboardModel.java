@@ -0,0 +1,87 @@
+package game2048logic;
+import game2048rendering.Side;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+/** Tests that BitboardModel behaves exactly like Model on 4x4 boards. */
+@Timeout(value = 60, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+public class TestBitboardModel {
+
+    /** Checks that the right two pieces merge when 3 adjacent pieces have same value. */
+    @Test
+    @Tag("bitboard")
+    @DisplayName("3 tile merge")
+    public void testTripleMerge() {
+        int[][] before = new int[][]{
+                {2, 0, 0, 0},
+                {2, 0, 0, 0},
+                {2, 0, 0, 0},
+                {0, 0, 0, 0},
+        };
+        int[][] after = new int[][]{
+                {4, 0, 0, 0},
+                {2, 0, 0, 0},
+                {0, 0, 0, 0},
+                {0, 0, 0, 0},
+        };
+        BitboardModel model = new BitboardModel(before, 0);
+        model.tiltWrapper(Side.NORTH);
+        assertWithMessage("Boards should match:").that(model)
+                .isEqualTo(new BitboardModel(after, 4));
+    }
+
+    /** Checks game over detection on a full board with no merges. */
+    @Test
+    @Tag("bitboard")
+    @DisplayName("No valid moves")
+    public void testGameOver() {
+        int[][] board = {
+                {128, 4, 2, 4},
+                {4, 32, 4, 2},
+                {8, 16, 2, 8},
+                {4, 32, 4, 1024}
+        };
+        BitboardModel model = new BitboardModel(board, 0);
+        assertWithMessage("Game is over. No tilt can cause a change:"
+                + model).that(model.gameOver()).isTrue();
+        board[0][0] = 4;
+        model = new BitboardModel(board, 0);
+        assertWithMessage("Game isn't over. A tilt left or right will merge:"
+                + model).that(model.gameOver()).isFalse();
+    }
+
+    /** Plays random tilts on random boards with both models and checks
+     *  that they always agree. */
+    @Test
+    @Tag("bitboard")
+    @DisplayName("Agrees with Model")
+    public void testAgreesWithModel() {
+        Random random = new Random(61);
+        for (int trial = 0; trial < 2000; trial += 1) {
+            int[][] raw = new int[4][4];
+            for (int[] row : raw) {
+                for (int k = 0; k < row.length; k += 1) {
+                    int e = random.nextInt(6);
+                    row[k] = e == 0 ? 0 : 1 << e;
+                }
+            }
+            Model expected = new Model(raw, 0);
+            BitboardModel actual = new BitboardModel(raw, 0);
+            for (int move = 0; move < 5; move += 1) {
+                Side side = Side.values()[random.nextInt(4)];
+                expected.tiltWrapper(side);
+                actual.tiltWrapper(side);
+                assertWithMessage("After tilting " + side).that(actual.toString())
+                        .isEqualTo(expected.toString());
+            }
+            assertWithMessage("Conversion from Model").that(new BitboardModel(expected))
+                    .isEqualTo(actual);
+        }
+    }
+}
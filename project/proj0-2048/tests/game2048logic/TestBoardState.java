@@ -0,0 +1,140 @@
+package game2048logic;
+import game2048rendering.Side;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+import static game2048logic.TestUtils.randomModel;
+
+/** Tests of the immutable positions of BoardState. */
+@Timeout(value = 60, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+public class TestBoardState {
+
+    /** Checks that states convert to and from boards without change. */
+    @Test
+    @Tag("board-state")
+    @DisplayName("conversion to and from Board")
+    public void testConversion() {
+        Random random = new Random(41);
+        for (int size : new int[] { 1, 3, 4, 9 }) {
+            Model model = randomModel(size, 2.0 / 3, 4, random);
+            BoardState state = BoardState.of(model.getBoard());
+            Model copy = new Model(size);
+            state.copyTo(copy.getBoard());
+            assertWithMessage("copy of %s", state).that(copy.toString())
+                .isEqualTo(model.toString());
+            assertWithMessage("state of copy").that(BoardState.of(
+                copy.getBoard())).isEqualTo(state);
+            assertWithMessage("max tile").that(state.maxExponent())
+                .isEqualTo(model.getBoard().maxExponent());
+            assertWithMessage("empty squares").that(state.emptyCount())
+                .isEqualTo(model.getBoard().emptyCount());
+        }
+    }
+
+    /** Checks tilts against Model, and that tilting leaves the original
+     *  state alone. */
+    @Test
+    @Tag("board-state")
+    @DisplayName("tilts agree with Model")
+    public void testTilts() {
+        Random random = new Random(43);
+        for (int trial = 0; trial < 200; trial += 1) {
+            int size = 2 + random.nextInt(6);
+            Model model = randomModel(size, 2.0 / 3, 4, random);
+            BoardState state = BoardState.of(model.getBoard());
+            String text = state.toString();
+            for (Side side : Side.values()) {
+                Model next = model.successor(side);
+                BoardState tilted = state.tilt(side);
+                assertWithMessage("state unchanged by tilt")
+                    .that(state.toString()).isEqualTo(text);
+                if (next == null) {
+                    assertWithMessage("%s of %s", side, state).that(tilted)
+                        .isNull();
+                    continue;
+                }
+                assertWithMessage("%s of %s", side, state).that(tilted)
+                    .isEqualTo(BoardState.of(next.getBoard()));
+                assertWithMessage("hash of %s of %s", side, state)
+                    .that(tilted.hashCode())
+                    .isEqualTo(BoardState.of(next.getBoard()).hashCode());
+                assertWithMessage("points of %s of %s", side, state)
+                    .that(tilted.points()).isEqualTo(next.score());
+            }
+        }
+    }
+
+    /** Checks adding tiles. */
+    @Test
+    @Tag("board-state")
+    @DisplayName("adding tiles")
+    public void testWithTile() {
+        BoardState empty = BoardState.of(new Model(4).getBoard());
+        BoardState one = empty.withTile(1, 2, 3);
+        assertWithMessage("new tile").that(one.value(1, 2)).isEqualTo(8);
+        assertWithMessage("original").that(empty.value(1, 2)).isEqualTo(0);
+        assertWithMessage("max tile").that(one.maxTile()).isEqualTo(8);
+        assertWithMessage("same tiles").that(empty.withTile(1, 2, 3))
+            .isEqualTo(one);
+        assertWithMessage("different tiles").that(empty.withTile(2, 1, 3))
+            .isNotEqualTo(one);
+    }
+
+    /** Expands the same states from several threads at once and checks
+     *  that they all get the same results. */
+    @Test
+    @Tag("board-state")
+    @DisplayName("shared between threads")
+    public void testConcurrent() throws Exception {
+        Random random = new Random(47);
+        List<BoardState> states = new ArrayList<>();
+        for (int k = 0; k < 200; k += 1) {
+            states.add(BoardState.of(randomModel(4 + k % 3, 2.0 / 3, 4, random)
+                                     .getBoard()));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t += 1) {
+                results.add(pool.submit(() -> expandAll(states)));
+            }
+            long expected = expandAll(states);
+            for (Future<Long> result : results) {
+                assertWithMessage("checksum").that(result.get())
+                    .isEqualTo(expected);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Return a checksum of the states two tilts from each of STATES. */
+    private static long expandAll(List<BoardState> states) {
+        long sum = 0;
+        for (BoardState state : states) {
+            for (Side first : Side.values()) {
+                BoardState next = state.tilt(first);
+                if (next == null) {
+                    continue;
+                }
+                for (Side second : Side.values()) {
+                    BoardState last = next.tilt(second);
+                    if (last != null) {
+                        sum = 31 * sum + last.hashCode() + last.points();
+                    }
+                }
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,70 @@
+package game2048logic;
+import game2048rendering.Board;
+import game2048rendering.Side;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+/** Tests that the empty squares, largest tile and equal neighbors that
+ *  Board tracks as tiles move agree with a scan of the board. */
+@Timeout(value = 60, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+public class TestBoardTracking {
+
+    /** Plays random games on boards of several sizes, checking the
+     *  tracked quantities after every move. */
+    @Test
+    @Tag("board-tracking")
+    @DisplayName("Tracking agrees with scans")
+    public void testRandomGames() {
+        Random random = new Random(61);
+        for (int size = 1; size <= 8; size += 1) {
+            Model model = new Model(size);
+            TileSpawner spawner = new TileSpawner(0.9, size);
+            model.addTile(spawner.newTile(model));
+            check(model.getBoard());
+            for (int move = 0; move < 500 && !model.gameOver(); move += 1) {
+                model.tiltWrapper(Side.values()[random.nextInt(4)]);
+                check(model.getBoard());
+                if (model.emptySpaceExists()) {
+                    int empty = model.getBoard().emptyCount();
+                    model.addTile(spawner.newTile(model));
+                    assertWithMessage("New tile must land on an empty square")
+                            .that(model.getBoard().emptyCount()).isEqualTo(empty - 1);
+                    check(model.getBoard());
+                }
+            }
+            model.clear();
+            check(model.getBoard());
+        }
+    }
+
+    /** Checks the tracked quantities of BOARD against a scan. */
+    private static void check(Board board) {
+        int empty = 0, max = 0;
+        boolean equalNeighbors = false;
+        int n = board.size();
+        for (int x = 0; x < n; x += 1) {
+            for (int y = 0; y < n; y += 1) {
+                int v = board.value(x, y);
+                empty += v == 0 ? 1 : 0;
+                max = Math.max(max, v);
+                equalNeighbors |= v != 0 && x < n - 1 && board.value(x + 1, y) == v;
+                equalNeighbors |= v != 0 && y < n - 1 && board.value(x, y + 1) == v;
+            }
+        }
+        assertWithMessage("Empty squares:" + board).that(board.emptyCount()).isEqualTo(empty);
+        assertWithMessage("Largest tile:" + board).that(board.maxValue()).isEqualTo(max);
+        assertWithMessage("Equal neighbors:" + board).that(board.hasEqualNeighbors())
+                .isEqualTo(equalNeighbors);
+        for (int k = 0; k < empty; k += 1) {
+            int square = board.emptySquare(k);
+            assertWithMessage("Empty square " + k + ":" + board)
+                    .that(board.value(square / n, square % n)).isEqualTo(0);
+        }
+    }
+}
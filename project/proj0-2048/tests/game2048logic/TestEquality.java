@@ -0,0 +1,86 @@
+package game2048logic;
+import game2048rendering.Side;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+import static game2048logic.TestUtils.randomModel;
+
+/** Tests Model.equals, Model.hashCode, and the Zobrist hash of Board. */
+@Timeout(value = 60, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+public class TestEquality {
+
+    /** Models differing only in score are unequal. */
+    @Test
+    @Tag("equality")
+    @DisplayName("Score matters")
+    public void testScore() {
+        int[][] board = {
+                {0, 0, 0, 0},
+                {0, 2, 0, 0},
+                {0, 0, 4, 0},
+                {0, 0, 0, 0}
+        };
+        assertWithMessage("Same tiles and score").that(new Model(board, 8))
+                .isEqualTo(new Model(board, 8));
+        assertWithMessage("Different score").that(new Model(board, 8))
+                .isNotEqualTo(new Model(board, 0));
+    }
+
+    /** The hash kept up to date by tilting matches the hash of the same
+     *  position built from scratch. */
+    @Test
+    @Tag("equality")
+    @DisplayName("Incremental hash")
+    public void testIncrementalHash() {
+        Random random = new Random(61);
+        for (int trial = 0; trial < 500; trial += 1) {
+            int size = 2 + random.nextInt(6);
+            Model model = randomModel(size, 0.8, 4, random);
+            for (int move = 0; move < 5; move += 1) {
+                model.tiltWrapper(Side.values()[random.nextInt(4)]);
+            }
+            int[][] after = new int[size][size];
+            for (int x = 0; x < size; x += 1) {
+                for (int y = 0; y < size; y += 1) {
+                    after[size - 1 - y][x] = model.getBoard().value(x, y);
+                }
+            }
+            Model rebuilt = new Model(after, model.score());
+            assertWithMessage("Rebuilt model:" + model).that(rebuilt).isEqualTo(model);
+            assertWithMessage("hashCode").that(rebuilt.hashCode()).isEqualTo(model.hashCode());
+            assertWithMessage("Zobrist hash").that(rebuilt.getBoard().zobristHash())
+                    .isEqualTo(model.getBoard().zobristHash());
+        }
+    }
+
+    /** A copy equals its original and changes independently of it. */
+    @Test
+    @Tag("equality")
+    @DisplayName("Copies")
+    public void testCopy() {
+        Model model = new Model(new int[][] {
+                {0, 0, 0, 0},
+                {0, 2, 0, 0},
+                {0, 2, 4, 0},
+                {0, 0, 0, 0}
+        }, 12, 64);
+        Model copy = model.copy();
+        assertWithMessage("Copy").that(copy).isEqualTo(model);
+        assertWithMessage("Winning tile of copy").that(copy.maxPiece())
+                .isEqualTo(64);
+        copy.tiltWrapper(Side.NORTH);
+        assertWithMessage("Original after tilting copy").that(model)
+                .isEqualTo(new Model(new int[][] {
+                        {0, 0, 0, 0},
+                        {0, 2, 0, 0},
+                        {0, 2, 4, 0},
+                        {0, 0, 0, 0}
+                }, 12, 64));
+        assertWithMessage("Tilted copy").that(copy).isNotEqualTo(model);
+    }
+}
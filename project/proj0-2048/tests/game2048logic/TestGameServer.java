@@ -0,0 +1,151 @@
+package game2048logic;
+import game2048rendering.Side;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/** Tests of GameServer and LoadGenerator over the loopback interface. */
+@Timeout(value = 60, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+public class TestGameServer {
+
+    /** Plays random tilts, checking after each that the server's board is
+     *  the previous one tilted as by Model, plus one new tile. */
+    @Test
+    @Tag("server")
+    @DisplayName("sessions tilt as Model does")
+    public void testTilts() throws IOException {
+        try (GameServer server = new GameServer(0).start();
+             Socket socket = new Socket(InetAddress.getLoopbackAddress(),
+                                        server.port())) {
+            BufferedReader in = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), US_ASCII));
+            Writer out = new OutputStreamWriter(socket.getOutputStream(),
+                                                US_ASCII);
+            assertWithMessage("NEW").that(send(in, out, "NEW 4 9"))
+                .isEqualTo("OK");
+            Random random = new Random(3);
+            String letters = "NESW";
+            Model before = PositionReader.fromText(send(in, out, "BOARD"));
+            for (int k = 0; k < 500; k += 1) {
+                int c = random.nextInt(4);
+                String[] reply = send(in, out, letters.substring(c, c + 1))
+                    .split(" ");
+                Model after = PositionReader.fromText(send(in, out, "BOARD"));
+                Side side = c == 0 ? Side.NORTH : c == 1 ? Side.EAST
+                    : c == 2 ? Side.SOUTH : Side.WEST;
+                long points = before.tiltWrapper(side).scoreDelta();
+                boolean moved = !reply[0].equals("-1");
+                assertWithMessage("points of move %s", k)
+                    .that(Long.parseLong(reply[0]))
+                    .isEqualTo(moved ? points : -1);
+                assertWithMessage("score after move %s", k)
+                    .that(Long.parseLong(reply[1])).isEqualTo(after.score());
+                assertWithMessage("Model score after move %s", k)
+                    .that(after.score()).isEqualTo(before.score());
+                assertWithMessage("squares changed by move %s", k)
+                    .that(newTiles(before, after)).isEqualTo(moved ? 1 : 0);
+                boolean over = reply[2].equals("1");
+                assertWithMessage("game over after move %s", k)
+                    .that(over).isEqualTo(after.legalMoves().isEmpty());
+                if (over) {
+                    assertWithMessage("NEW").that(send(in, out, "NEW"))
+                        .isEqualTo("OK");
+                    after = PositionReader.fromText(send(in, out, "BOARD"));
+                }
+                before = after;
+            }
+            assertWithMessage("bad command").that(send(in, out, "X"))
+                .startsWith("ERROR");
+            assertWithMessage("bad size").that(send(in, out, "NEW 0"))
+                .startsWith("ERROR");
+            assertWithMessage("QUIT").that(send(in, out, "QUIT"))
+                .isEqualTo("BYE");
+            assertWithMessage("after QUIT").that(in.readLine()).isNull();
+        }
+    }
+
+    /** Sends lines at and past GameServer.MAX_LINE and checks that only
+     *  the overlong one is refused, and that the session goes on. */
+    @Test
+    @Tag("server")
+    @DisplayName("overlong lines")
+    public void testLongLine() throws IOException {
+        try (GameServer server = new GameServer(0).start();
+             Socket socket = new Socket(InetAddress.getLoopbackAddress(),
+                                        server.port())) {
+            BufferedReader in = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), US_ASCII));
+            Writer out = new OutputStreamWriter(socket.getOutputStream(),
+                                                US_ASCII);
+            String longest = "NEW 4 7" + " ".repeat(GameServer.MAX_LINE - 7);
+            assertWithMessage("line of MAX_LINE").that(send(in, out, longest))
+                .isEqualTo("OK");
+            assertWithMessage("line of MAX_LINE + 1")
+                .that(send(in, out, longest + " ")).isEqualTo(
+                    "ERROR line too long");
+            assertWithMessage("very long line")
+                .that(send(in, out, "N".repeat(100000))).isEqualTo(
+                    "ERROR line too long");
+            assertWithMessage("after long lines").that(send(in, out, "NEW"))
+                .isEqualTo("OK");
+            assertWithMessage("QUIT").that(send(in, out, "QUIT"))
+                .isEqualTo("BYE");
+        }
+    }
+
+    /** Runs the load generator with pipelined moves against a server. */
+    @Test
+    @Tag("server")
+    @DisplayName("load generator")
+    public void testLoad() throws IOException {
+        try (GameServer server = new GameServer(0).start()) {
+            LoadGenerator.Report report = LoadGenerator.run(server.port(), 20,
+                                                            250, 8);
+            assertWithMessage("moves").that(report.moves()).isEqualTo(5000);
+            assertWithMessage("sessions").that(server.sessions())
+                .isEqualTo(20);
+            assertWithMessage("p99").that(report.latency().percentile(0.99))
+                .isAtMost(report.latency().max());
+        }
+    }
+
+    /** Send COMMAND on OUT and return the reply read from IN. */
+    private static String send(BufferedReader in, Writer out, String command)
+        throws IOException {
+        out.write(command + "\n");
+        out.flush();
+        return in.readLine();
+    }
+
+    /** Return the number of squares that are empty in EXPECTED and hold a
+     *  2 or 4 in ACTUAL, failing if they differ in any other way. */
+    private static int newTiles(Model expected, Model actual) {
+        int count = 0;
+        for (int x = 0; x < expected.size(); x += 1) {
+            for (int y = 0; y < expected.size(); y += 1) {
+                int e = expected.getBoard().exponent(x, y);
+                int a = actual.getBoard().exponent(x, y);
+                if (e == 0 && (a == 1 || a == 2)) {
+                    count += 1;
+                } else {
+                    assertWithMessage("square (%s, %s)", x, y).that(a)
+                        .isEqualTo(e);
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,132 @@
+package game2048logic;
+import game2048rendering.HeadlessMain;
+import game2048rendering.MoveSource;
+import game2048rendering.PolicyMoveSource;
+import game2048rendering.ScriptMoveSource;
+import game2048rendering.Side;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+/** Tests of games driven by MoveSources other than the GUI. */
+@Timeout(value = 60, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+public class TestHeadlessGame {
+
+    /** Names of the tilts in scripts, indexed by Side ordinal. */
+    private static final String[] NAMES = { "Up", "Right", "Down", "Left" };
+
+    /** Plays a random script and checks the final board against playing
+     *  the same tilts and tiles directly on a Model. */
+    @Test
+    @Tag("headless")
+    @DisplayName("script replays as on a model")
+    public void testScript() {
+        Random random = new Random(17);
+        List<Side> sides = new ArrayList<>();
+        StringBuilder script = new StringBuilder("# random moves\n\n");
+        for (int k = 0; k < 3000; k += 1) {
+            Side side = Side.values()[random.nextInt(4)];
+            sides.add(side);
+            script.append(k % 2 == 0 ? NAMES[side.ordinal()]
+                          : MoveSource.keyOf(side)).append("\n");
+        }
+
+        Model played = new Model(4);
+        long commands = HeadlessMain.play(
+            played, new ScriptMoveSource(new StringReader(script.toString())),
+            0.9, 5);
+        assertWithMessage("commands read").that(commands)
+            .isEqualTo(sides.size() + 1);
+
+        Model expected = new Model(4);
+        TileSpawner spawner = new TileSpawner(0.9, 5);
+        expected.addTile(spawner.newTile(expected));
+        boolean needTile = true;
+        for (Side side : sides) {
+            if (needTile && !expected.gameOver()) {
+                expected.addTile(spawner.newTile(expected));
+            }
+            needTile = expected.tiltWrapper(side).moved();
+        }
+        assertWithMessage("final board").that(played.toString())
+            .isEqualTo(expected.toString());
+    }
+
+    /** Plays "New Game" in the middle of a script. */
+    @Test
+    @Tag("headless")
+    @DisplayName("new game from a script")
+    public void testNewGame() {
+        Model model = new Model(4);
+        HeadlessMain.play(model, new ScriptMoveSource(new StringReader(
+            "Up\nLeft\nDown\nRight\nNew Game\n")), 0.9, 3);
+        int tiles = 0;
+        for (int x = 0; x < 4; x += 1) {
+            for (int y = 0; y < 4; y += 1) {
+                tiles += model.getBoard().exponent(x, y) != 0 ? 1 : 0;
+            }
+        }
+        assertWithMessage("tiles after new game").that(tiles).isEqualTo(2);
+        assertWithMessage("score after new game").that(model.score())
+            .isEqualTo(0);
+    }
+
+    /** Plays a whole game with moves from a policy. */
+    @Test
+    @Tag("headless")
+    @DisplayName("policy plays to the end")
+    public void testPolicy() {
+        Model model = new Model(4);
+        Random random = new Random(11);
+        MovePolicy policy = m -> {
+            for (Side side : m.legalMoves()) {
+                if (random.nextBoolean()) {
+                    return side;
+                }
+            }
+            return m.legalMoves().get(0);
+        };
+        HeadlessMain.play(model, new PolicyMoveSource(policy, model), 0.9, 7);
+        assertWithMessage("game over").that(model.gameOver()).isTrue();
+    }
+
+    /** Checks that a command waiting from the input, such as "Quit",
+     *  takes precedence over the moves of an AI player. */
+    @Test
+    @Tag("headless")
+    @DisplayName("waiting commands interrupt the AI")
+    public void testQuitDuringAI() {
+        Model model = new Model(8);
+        int[] polls = { 0 };
+        MoveSource input = new MoveSource() {
+            @Override
+            public String getKey() {
+                throw new AssertionError("blocked on input during AI play");
+            }
+
+            @Override
+            public String pollKey() {
+                polls[0] += 1;
+                return polls[0] > 5 ? "Quit" : null;
+            }
+        };
+        int[] moves = { 0 };
+        MovePolicy policy = m -> {
+            moves[0] += 1;
+            return m.legalMoves().get(0);
+        };
+        long commands = HeadlessMain.play(model, input, policy, 0.9, 13);
+        assertWithMessage("commands read").that(commands).isEqualTo(1);
+        assertWithMessage("AI moves before quitting").that(moves[0])
+            .isEqualTo(5);
+        assertWithMessage("game over").that(model.gameOver()).isFalse();
+    }
+}
@@ -0,0 +1,50 @@
+package game2048logic;
+import game2048rendering.Side;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+import static game2048logic.TestUtils.randomModel;
+
+/** Tests that LineTilt tilts packed boards as Model does. */
+@Timeout(value = 60, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+public class TestLineTilt {
+
+    /** Tilts random positions of many sizes, with and without room to
+     *  move, toward each side in both LineTilt and Model. */
+    @Test
+    @Tag("line-tilt")
+    @DisplayName("LineTilt agrees with Model")
+    public void testAgainstModel() {
+        Random random = new Random(29);
+        int[] sizes = { 1, 2, 3, 4, 5, 7, 8, 9, 15, 16, 17, 24, 40 };
+        for (int size : sizes) {
+            LineTilt lines = new LineTilt(size);
+            for (int trial = 0; trial < 20; trial += 1) {
+                double fill = random.nextDouble();
+                int maxExponent = 1 + random.nextInt(trial % 2 == 0 ? 3 : 12);
+                Model position = randomModel(size, fill, maxExponent, random);
+                for (Side side : Side.values()) {
+                    Model model = position.copy();
+                    byte[] grid = new byte[size * size];
+                    model.getBoard().saveExponents(grid, 0);
+                    String before = model.toString();
+                    TiltResult result = model.tiltWrapper(side);
+                    long score = lines.tilt(grid, side);
+                    byte[] expected = new byte[size * size];
+                    model.getBoard().saveExponents(expected, 0);
+                    String message = "Tilt " + side + " of" + before;
+                    assertWithMessage(message).that(Arrays.equals(grid, expected))
+                            .isTrue();
+                    assertWithMessage(message).that(score)
+                            .isEqualTo(result.moved() ? result.scoreDelta() : -1);
+                }
+            }
+        }
+    }
+}
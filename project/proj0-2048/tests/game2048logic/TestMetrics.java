@@ -0,0 +1,165 @@
+package game2048logic;
+import game2048rendering.Side;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+/** Tests of Metrics and the latency histograms behind it. */
+@Timeout(value = 60, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+public class TestMetrics {
+
+    /** Checks that every value falls in a bucket whose bounds contain it,
+     *  and that buckets are no wider than an eighth of their values. */
+    @Test
+    @Tag("metrics")
+    @DisplayName("bucket bounds")
+    public void testBuckets() {
+        Random random = new Random(5);
+        for (int k = 0; k < 10000; k += 1) {
+            long value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+            int b = LatencyHistogram.bucket(value);
+            long low = LatencyHistogram.lowestValue(b);
+            long high = LatencyHistogram.lowestValue(b + 1) - 1;
+            assertWithMessage("bucket %s of %s", b, value)
+                .that(value).isAtLeast(low);
+            assertWithMessage("bucket %s of %s", b, value)
+                .that(value).isAtMost(high);
+            assertWithMessage("width of bucket %s", b)
+                .that(high - low).isAtMost(Math.max(0, low / 8));
+        }
+    }
+
+    /** Checks percentiles of a uniform spread of values against their
+     *  exact values. */
+    @Test
+    @Tag("metrics")
+    @DisplayName("percentiles")
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 100000; v += 1) {
+            histogram.record(v);
+        }
+        assertWithMessage("count").that(histogram.count()).isEqualTo(100000);
+        assertWithMessage("max").that(histogram.max()).isEqualTo(100000);
+        assertWithMessage("mean").that(histogram.mean())
+            .isWithin(1e-6).of(50000.5);
+        for (double q : new double[] { 0.5, 0.9, 0.99, 0.999 }) {
+            long exact = (long) (q * 100000);
+            assertWithMessage("percentile %s", q)
+                .that((double) histogram.percentile(q))
+                .isWithin(exact / 8.0).of(exact);
+        }
+        assertWithMessage("percentile 1").that(histogram.percentile(1))
+            .isEqualTo(100000);
+    }
+
+    /** Records from several threads at once and checks nothing is lost,
+     *  then resets. */
+    @Test
+    @Tag("metrics")
+    @DisplayName("concurrent recording and reset")
+    public void testConcurrent() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t += 1) {
+            long base = t;
+            threads[t] = new Thread(() -> {
+                for (int k = 0; k < 50000; k += 1) {
+                    histogram.record(base * 1000 + k % 1000);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertWithMessage("count").that(histogram.count()).isEqualTo(200000);
+        assertWithMessage("max").that(histogram.max()).isEqualTo(3999);
+        histogram.reset();
+        assertWithMessage("count after reset").that(histogram.count())
+            .isEqualTo(0);
+        assertWithMessage("max after reset").that(histogram.max())
+            .isEqualTo(0);
+        assertWithMessage("p50 after reset").that(histogram.percentile(0.5))
+            .isEqualTo(0);
+    }
+
+    /** Runs Probe in a JVM of its own with the metrics on, since
+     *  Metrics.ENABLED is fixed when Metrics is loaded, and checks that
+     *  tilts, tile moves, merges and end-of-game checks were counted and
+     *  read back through the MXBean. */
+    @Test
+    @Tag("metrics")
+    @DisplayName("counters with metrics on")
+    public void testEnabled() throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator
+            + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(
+            java, "-Dgame2048.metrics=true",
+            "-cp", System.getProperty("java.class.path"),
+            Probe.class.getName())
+            .redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(),
+                                   StandardCharsets.UTF_8);
+        assertWithMessage("exit status of probe, which printed:%n%s", output)
+            .that(process.waitFor()).isEqualTo(0);
+        Map<String, Long> values = new HashMap<>();
+        for (String line : output.split("\\R")) {
+            String[] words = line.split("=");
+            if (words.length == 2) {
+                values.put(words[0], Long.parseLong(words[1]));
+            }
+        }
+        assertWithMessage("probe output").that(values)
+            .containsEntry("Registered", 1L);
+        assertWithMessage("probe output").that(values)
+            .containsEntry("Tilts", 2L);
+        for (String name : new String[] { "Moves", "Merges",
+                                          "GameOverChecks" }) {
+            assertWithMessage("%s in probe output:%n%s", name, output)
+                .that(values.getOrDefault(name, 0L)).isGreaterThan(0L);
+        }
+    }
+
+    /** A program that plays a little with the metrics as set by the
+     *  system property game2048.metrics and prints the counters, read
+     *  through the platform MBean server, one "NAME=VALUE" per line. */
+    public static class Probe {
+        public static void main(String[] args) throws JMException {
+            Model model = new Model(new int[][] {
+                    { 2, 2, 0, 4 },
+                    { 0, 4, 0, 0 },
+                    { 0, 0, 8, 0 },
+                    { 2, 0, 0, 0 },
+                }, 0);
+            model.tiltWrapper(Side.NORTH);
+            model.tiltWrapper(Side.WEST);
+            model.gameOver();
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(Metrics.OBJECT_NAME);
+            boolean registered = server.isRegistered(name);
+            System.out.printf("Registered=%d%n", registered ? 1 : 0);
+            if (registered) {
+                for (String attribute : new String[] {
+                        "Tilts", "Moves", "Merges", "GameOverChecks" }) {
+                    System.out.printf("%s=%s%n", attribute,
+                                      server.getAttribute(name, attribute));
+                }
+            }
+        }
+    }
+}
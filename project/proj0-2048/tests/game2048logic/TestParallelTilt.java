@@ -0,0 +1,76 @@
+package game2048logic;
+import game2048rendering.Board;
+import game2048rendering.Side;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+/** Tests that parallel tilts give the same results as sequential ones. */
+@Timeout(value = 60, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+public class TestParallelTilt {
+
+    /** Plays the same random game on a parallel and a sequential model,
+     *  checking after every move that the boards, scores, move logs and
+     *  numbering of the empty squares agree. */
+    @Test
+    @Tag("parallel-tilt")
+    @DisplayName("Parallel tilts match sequential ones")
+    public void testParallelGame() {
+        for (int size : new int[] { Model.PARALLEL_MIN_SIZE,
+                                    Model.PARALLEL_MIN_SIZE + 37 }) {
+            Model parallel = new Model(size);
+            parallel.setParallel(true);
+            Model sequential = new Model(size);
+            TileSpawner spawner1 = new TileSpawner(0.9, size),
+                spawner2 = new TileSpawner(0.9, size);
+            Random random = new Random(size);
+            for (int k = 0; k < 4 * size; k += 1) {
+                parallel.addTile(spawner1.newTile(parallel));
+                sequential.addTile(spawner2.newTile(sequential));
+            }
+            for (int move = 0; move < 150; move += 1) {
+                Side side = Side.values()[random.nextInt(4)];
+                TiltResult result1 = parallel.tiltWrapper(side),
+                    result2 = sequential.tiltWrapper(side);
+                String message = "Move " + move + " toward " + side;
+                assertWithMessage(message).that(parallel).isEqualTo(sequential);
+                assertWithMessage(message + ": moves")
+                        .that(parallel.getBoard().moveLog())
+                        .isEqualTo(sequential.getBoard().moveLog());
+                assertWithMessage(message + ": points")
+                        .that(result1.scoreDelta()).isEqualTo(result2.scoreDelta());
+                check(message, parallel.getBoard(), sequential.getBoard());
+                if (result1.moved() && parallel.emptySpaceExists()) {
+                    parallel.addTile(spawner1.newTile(parallel));
+                    sequential.addTile(spawner2.newTile(sequential));
+                }
+            }
+        }
+    }
+
+    /** Checks that the bookkeeping of BOARD1 and BOARD2 agrees, reporting
+     *  failures with MESSAGE. */
+    private static void check(String message, Board board1, Board board2) {
+        assertWithMessage(message + ": empty squares")
+                .that(board1.emptyCount()).isEqualTo(board2.emptyCount());
+        for (int k = 0; k < board1.emptyCount(); k += 1) {
+            assertWithMessage(message + ": empty square " + k)
+                    .that(board1.emptySquare(k)).isEqualTo(board2.emptySquare(k));
+        }
+        assertWithMessage(message + ": hash")
+                .that(board1.zobristHash()).isEqualTo(board2.zobristHash());
+        assertWithMessage(message + ": largest tile")
+                .that(board1.maxExponent()).isEqualTo(board2.maxExponent());
+        assertWithMessage(message + ": equal neighbors")
+                .that(board1.hasEqualNeighbors()).isEqualTo(board2.hasEqualNeighbors());
+        for (int value = 2; value <= 1 << 12; value *= 2) {
+            assertWithMessage(message + ": tiles of value " + value)
+                    .that(board1.tileCount(value)).isEqualTo(board2.tileCount(value));
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package game2048logic;
+import game2048rendering.Board;
+import game2048rendering.Tile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Tests the binary and text forms of positions written by
+ *  PositionWriter and read by PositionReader. */
+@Timeout(value = 60, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+public class TestPositionFile {
+
+    /** Writes random positions with 4 and 8 bits per square, on boards of
+     *  odd and even sizes, and reads them back in order and at random,
+     *  through windows small enough that many are mapped. */
+    @Test
+    @Tag("position-file")
+    @DisplayName("Positions read back as written")
+    public void testRoundTrip() throws IOException {
+        Random random = new Random(19);
+        for (int size : new int[] { 3, 4, 7 }) {
+            for (int bits : new int[] { 4, 8 }) {
+                List<Model> positions = new ArrayList<>();
+                for (int k = 0; k < 500; k += 1) {
+                    positions.add(randomModel(size, bits == 4 ? 15 : 40, random));
+                }
+                Path file = Files.createTempFile("positions", ".bin");
+                try {
+                    try (PositionWriter out = new PositionWriter(file, size, bits)) {
+                        for (Model model : positions) {
+                            out.write(model);
+                        }
+                        assertWithMessage("Positions written").that(out.count())
+                                .isEqualTo(positions.size());
+                    }
+                    try (PositionReader in = new PositionReader(file, 1000)) {
+                        String message = size + "x" + size + ", " + bits + " bits";
+                        assertWithMessage(message).that(in.count())
+                                .isEqualTo(positions.size());
+                        assertWithMessage(message).that(in.size()).isEqualTo(size);
+                        Model model = new Model(size);
+                        for (Model expected : positions) {
+                            assertWithMessage(message).that(in.next(model)).isTrue();
+                            assertWithMessage(message).that(model).isEqualTo(expected);
+                        }
+                        assertWithMessage(message).that(in.next(model)).isFalse();
+                        for (int k = 0; k < 200; k += 1) {
+                            int j = random.nextInt(positions.size());
+                            in.read(j, model);
+                            assertWithMessage(message + ", position " + j)
+                                    .that(model).isEqualTo(positions.get(j));
+                        }
+                    }
+                } finally {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /** Checks that tiles too large for 4 bits per square are refused. */
+    @Test
+    @Tag("position-file")
+    @DisplayName("Large tiles need 8 bits per square")
+    public void testNibbleOverflow() throws IOException {
+        Path file = Files.createTempFile("positions", ".bin");
+        try (PositionWriter out = new PositionWriter(file, 4, 4)) {
+            Model model = new Model(new int[][] {
+                {0, 0, 0, 0},
+                {0, 1 << 16, 0, 0},
+                {0, 0, 0, 0},
+                {0, 0, 0, 0},
+            }, 0, 1 << 20);
+            assertThrows(IllegalArgumentException.class, () -> out.write(model));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /** Checks that a record with a bad exponent is refused without
+     *  changing the model it was to be read into. */
+    @Test
+    @Tag("position-file")
+    @DisplayName("Corrupt records are refused")
+    public void testCorrupt() throws IOException {
+        Path file = Files.createTempFile("positions", ".bin");
+        try {
+            Model written = randomModel(4, 20, new Random(7));
+            try (PositionWriter out = new PositionWriter(file, 4, 8)) {
+                out.write(written);
+            }
+            int square = PositionWriter.HEADER_SIZE + Long.BYTES + 5;
+            for (int bad : new int[] { Board.MAX_EXPONENT + 1, 0x80, 0xff }) {
+                byte[] bytes = Files.readAllBytes(file);
+                bytes[square] = (byte) bad;
+                Files.write(file, bytes);
+                try (PositionReader in = new PositionReader(file)) {
+                    Model model = new Model(4);
+                    model.addTile(Tile.create(2, 1, 1));
+                    Model before = new Model(new int[][] {
+                        {0, 0, 0, 0},
+                        {0, 0, 0, 0},
+                        {0, 2, 0, 0},
+                        {0, 0, 0, 0},
+                    }, 0);
+                    assertThrows(IllegalArgumentException.class,
+                                 () -> in.read(0, model));
+                    assertWithMessage("Model after exponent " + bad)
+                            .that(model).isEqualTo(before);
+                    assertWithMessage("Empty squares after exponent " + bad)
+                            .that(model.getBoard().emptyCount()).isEqualTo(15);
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /** Checks the text form of positions. */
+    @Test
+    @Tag("position-file")
+    @DisplayName("Text form round trip")
+    public void testText() {
+        Model model = new Model(new int[][] {
+            {2, 0, 0, 4},
+            {0, 8, 0, 0},
+            {0, 0, 1024, 0},
+            {16, 0, 0, 2},
+        }, 1234);
+        String text = PositionWriter.toText(model);
+        assertWithMessage("Text form").that(text)
+                .isEqualTo("4 1234 0400000100000300000a000001000002");
+        assertWithMessage("Parsed text").that(PositionReader.fromText(text))
+                .isEqualTo(model);
+        Random random = new Random(3);
+        for (int k = 0; k < 100; k += 1) {
+            Model other = randomModel(1 + random.nextInt(9), 60, random);
+            assertWithMessage("Parsed text")
+                    .that(PositionReader.fromText(PositionWriter.toText(other)))
+                    .isEqualTo(other);
+        }
+    }
+
+    /** Returns a model of size SIZE holding random tiles with exponents
+     *  up to MAXEXPONENT and a random score, using RANDOM. */
+    private static Model randomModel(int size, int maxExponent, Random random) {
+        Model model = TestUtils.randomModel(size, 0.5, maxExponent, random);
+        model.setScore(random.nextLong() >>> 1);
+        return model;
+    }
+}
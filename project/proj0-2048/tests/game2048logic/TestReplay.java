@@ -0,0 +1,164 @@
+package game2048logic;
+import game2048rendering.Side;
+import game2048rendering.Tile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+/** Tests that ReplayRunner rebuilds the positions recorded by ReplayLog. */
+@Timeout(value = 60, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+public class TestReplay {
+
+    /** Plays several games on one log, including a long one on a large
+     *  board, and checks that every position is rebuilt exactly. */
+    @Test
+    @Tag("replay")
+    @DisplayName("Replay rebuilds every position")
+    public void testReplay() throws IOException {
+        Path file = Files.createTempFile("replay", ".log");
+        try {
+            int size = 24;
+            List<Model> positions = new ArrayList<>();
+            try (ReplayLog log = new ReplayLog(file, size, 17, 0.9)) {
+                Model model = new Model(size);
+                TileSpawner spawner = new TileSpawner(0.9, 17);
+                Random random = new Random(17);
+                play(model, spawner, random, log, 40, positions);
+                play(model, spawner, random, log, 700, positions);
+                play(model, spawner, random, log, 3, positions);
+            }
+
+            ReplayRunner runner = new ReplayRunner(file);
+            assertWithMessage("Board size").that(runner.size()).isEqualTo(size);
+            assertWithMessage("Seed").that(runner.seed()).isEqualTo(17);
+            assertWithMessage("Number of moves").that(runner.moveCount())
+                    .isEqualTo(positions.size() - 1);
+            for (int k = 0; k <= runner.moveCount(); k += 1) {
+                assertWithMessage("Position before move " + k)
+                        .that(runner.modelAt(k)).isEqualTo(positions.get(k));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /** Checks that a log holding a position given at the start, as in a
+     *  hot start of Game, replays from that position. */
+    @Test
+    @Tag("replay")
+    @DisplayName("Replay starts from a logged position")
+    public void testPosition() throws IOException {
+        Path file = Files.createTempFile("replay", ".log");
+        try {
+            Model model = new Model(new int[][] {
+                {2, 0, 0, 4},
+                {0, 8, 0, 0},
+                {0, 0, 1024, 0},
+                {16, 0, 0, 2},
+            }, 300);
+            try (ReplayLog log = new ReplayLog(file, 4, 1, 0.9)) {
+                log.position(model);
+                model.tiltWrapper(Side.NORTH);
+                log.tilt(Side.NORTH);
+            }
+            ReplayRunner runner = new ReplayRunner(file);
+            assertWithMessage("Number of moves").that(runner.moveCount())
+                    .isEqualTo(1);
+            assertWithMessage("First move").that(runner.move(0))
+                    .isEqualTo(Side.NORTH);
+            assertWithMessage("Position after replay").that(runner.modelAt(1))
+                    .isEqualTo(model);
+            assertWithMessage("Position before replay").that(runner.modelAt(0))
+                    .isEqualTo(new Model(new int[][] {
+                        {2, 0, 0, 4},
+                        {0, 8, 0, 0},
+                        {0, 0, 1024, 0},
+                        {16, 0, 0, 2},
+                    }, 300));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /** Checks that a session with a winning tile other than MAX_PIECE
+     *  replays with that tile, so it ends where the recorded game did. */
+    @Test
+    @Tag("replay")
+    @DisplayName("Replay keeps the winning tile")
+    public void testMaxPiece() throws IOException {
+        Path file = Files.createTempFile("replay", ".log");
+        try {
+            Model model = new Model(4, 16);
+            try (ReplayLog log = new ReplayLog(file, 4, 16, 5, 0.9)) {
+                TileSpawner spawner = new TileSpawner(0.9, 5);
+                Random random = new Random(5);
+                log.newGame();
+                addTile(model, spawner, log);
+                while (!model.gameOver()) {
+                    Side side = Side.values()[random.nextInt(4)];
+                    if (model.tiltWrapper(side).moved()) {
+                        log.tilt(side);
+                        if (!model.gameOver()) {
+                            addTile(model, spawner, log);
+                        }
+                    }
+                }
+            }
+            ReplayRunner runner = new ReplayRunner(file);
+            assertWithMessage("Winning tile").that(runner.maxPiece())
+                    .isEqualTo(16);
+            Model replayed = runner.modelAt(runner.moveCount());
+            assertWithMessage("Final position").that(replayed)
+                    .isEqualTo(model);
+            assertWithMessage("Game over after replay")
+                    .that(replayed.gameOver()).isTrue();
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /** Plays a new game of at most MOVES moves on MODEL, logging it to LOG
+     *  and adding a copy of the position before each move, and the final
+     *  position, to POSITIONS. The previous final position is replaced. */
+    private static void play(Model model, TileSpawner spawner, Random random,
+                             ReplayLog log, int moves, List<Model> positions) {
+        if (!positions.isEmpty()) {
+            positions.remove(positions.size() - 1);
+        }
+        model.clear();
+        log.newGame();
+        addTile(model, spawner, log);
+        addTile(model, spawner, log);
+        for (int k = 0; k < moves && !model.gameOver(); ) {
+            Side side = Side.values()[random.nextInt(4)];
+            Model before = model.copy();
+            if (model.tiltWrapper(side).moved()) {
+                positions.add(before);
+                log.tilt(side);
+                k += 1;
+                if (model.emptySpaceExists()) {
+                    addTile(model, spawner, log);
+                }
+            }
+        }
+        positions.add(model.copy());
+    }
+
+    /** Adds a new tile from SPAWNER to MODEL and records it in LOG. */
+    private static void addTile(Model model, TileSpawner spawner,
+                                ReplayLog log) {
+        Tile tile = spawner.newTile(model);
+        model.addTile(tile);
+        log.addTile(tile.value(), tile.x(), tile.y());
+    }
+}
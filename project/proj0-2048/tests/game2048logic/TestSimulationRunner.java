@@ -0,0 +1,63 @@
+package game2048logic;
+import game2048rendering.Side;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+/** Tests headless simulation of whole games. */
+@Timeout(value = 60, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+public class TestSimulationRunner {
+
+    /** Runs with the same seed give the same games, whatever the number
+     *  of threads. */
+    @Test
+    @Tag("simulation")
+    @DisplayName("Reproducible runs")
+    public void testReproducible() {
+        SimulationRunner.Report first = new SimulationRunner(4, 0.9, 1)
+                .run(50, 61, SimulationRunner::randomPolicy);
+        SimulationRunner.Report second = new SimulationRunner(4, 0.9, 4)
+                .run(50, 61, SimulationRunner::randomPolicy);
+        assertWithMessage("Number of games").that(first.games()).isEqualTo(50);
+        assertWithMessage("Scores").that(second.scores()).isEqualTo(first.scores());
+        assertWithMessage("Moves").that(second.moves()).isEqualTo(first.moves());
+        assertWithMessage("Largest tiles").that(second.maxTileHistogram())
+                .isEqualTo(first.maxTileHistogram());
+    }
+
+    /** A policy that gives up, or that chooses a tilt that changes
+     *  nothing, ends its game there, and is counted. */
+    @Test
+    @Tag("simulation")
+    @DisplayName("Illegal moves end games")
+    public void testIllegal() {
+        SimulationRunner runner = new SimulationRunner(4, 0.9, 2);
+        SimulationRunner.Report legal =
+                runner.run(20, 5, SimulationRunner::randomPolicy);
+        assertWithMessage("Illegal ends of random games")
+                .that(legal.illegalEnds()).isEqualTo(0);
+
+        SimulationRunner.Report givingUp = runner.run(20, 5, seed -> m -> null);
+        assertWithMessage("Games given up").that(givingUp.illegalEnds())
+                .isEqualTo(20);
+        assertWithMessage("Moves when giving up").that(givingUp.moves())
+                .isEqualTo(0);
+
+        MovePolicy stubborn = model -> {
+            for (Side side : Side.values()) {
+                if (!model.legalMoves().contains(side)) {
+                    return side;
+                }
+            }
+            return Side.NORTH;
+        };
+        SimulationRunner.Report illegal = runner.run(20, 5, seed -> stubborn);
+        assertWithMessage("Games ended by illegal moves")
+                .that(illegal.illegalEnds()).isEqualTo(20);
+        assertWithMessage("Report:" + illegal).that(illegal.toString())
+                .contains("20 games ended by an illegal move");
+    }
+}
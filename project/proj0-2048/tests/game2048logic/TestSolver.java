@@ -0,0 +1,148 @@
+package game2048logic;
+import game2048rendering.Side;
+import game2048rendering.Tile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+/** Tests Solver against a plain expectimax search over Models. */
+@Timeout(value = 60, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+public class TestSolver {
+
+    /** Probability that a new tile is 2. */
+    private static final double PROB_OF_2 = 0.9;
+
+    /** Solves positions from random games on 2x2 and 3x3 boards and
+     *  checks their probabilities and best moves, including after the
+     *  table is reopened read-only. */
+    @Test
+    @Tag("solver")
+    @DisplayName("Solver agrees with expectimax")
+    public void testSolver() throws IOException {
+        check(2, 32, 10);
+        check(3, 16, 30);
+    }
+
+    /** Checks the solutions of TRIALS positions on SIZE x SIZE boards
+     *  with target tile TARGET. */
+    private static void check(int size, int target, int trials)
+        throws IOException {
+        Path file = Files.createTempFile("solver", ".tbl");
+        try {
+            Random random = new Random(size);
+            Model[] positions = new Model[trials];
+            double[] expected = new double[trials];
+            Map<String, Double> memo = new HashMap<>();
+            try (Solver solver = Solver.create(file, size, target, PROB_OF_2,
+                                               18)) {
+                for (int k = 0; k < trials; k += 1) {
+                    positions[k] = randomPosition(size, target, random);
+                    expected[k] = value(positions[k], target, memo);
+                    String message = "P(win) of" + positions[k];
+                    assertWithMessage(message).that(solver.solve(positions[k]))
+                            .isWithin(1e-5).of(expected[k]);
+                    assertWithMessage(message)
+                            .that(solver.winProbability(positions[k]))
+                            .isWithin(1e-5).of(expected[k]);
+                }
+            }
+            try (Solver solver = Solver.open(file)) {
+                for (int k = 0; k < trials; k += 1) {
+                    Model model = positions[k];
+                    String message = "Best move from" + model;
+                    assertWithMessage(message).that(solver.winProbability(model))
+                            .isWithin(1e-5).of(expected[k]);
+                    Side best = solver.bestMove(model);
+                    if (model.legalMoves().isEmpty() || expected[k] == 1
+                        && model.getBoard().maxValue() >= target) {
+                        assertWithMessage(message).that(best).isNull();
+                        continue;
+                    }
+                    assertWithMessage(message).that(model.legalMoves())
+                            .contains(best);
+                    assertWithMessage(message)
+                            .that(after(model.successor(best), target, memo))
+                            .isWithin(1e-5).of(expected[k]);
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /** Returns a position from a random game on a SIZE x SIZE board that
+     *  has not yet made TARGET, using RANDOM. */
+    private static Model randomPosition(int size, int target, Random random) {
+        Model model = new Model(size, target);
+        TileSpawner spawner = new TileSpawner(PROB_OF_2, random.nextLong());
+        model.addTile(spawner.newTile(model));
+        model.addTile(spawner.newTile(model));
+        int moves = random.nextInt(20);
+        for (int k = 0; k < moves && !model.gameOver(); k += 1) {
+            model.tiltWrapper(model.legalMoves().get(
+                random.nextInt(model.legalMoves().size())));
+            if (!model.gameOver()) {
+                model.addTile(spawner.newTile(model));
+            }
+        }
+        return model;
+    }
+
+    /** Returns the probability of making TARGET from MODEL with the
+     *  player to move, by expectimax, memoized in MEMO. */
+    private static double value(Model model, int target, Map<String, Double> memo) {
+        if (model.getBoard().maxValue() >= target) {
+            return 1;
+        }
+        String key = key(model);
+        Double known = memo.get(key);
+        if (known != null) {
+            return known;
+        }
+        double best = 0;
+        for (Side side : model.legalMoves()) {
+            best = Math.max(best, after(model.successor(side), target, memo));
+        }
+        memo.put(key, best);
+        return best;
+    }
+
+    /** Returns the probability of making TARGET from MODEL, the result of
+     *  a tilt, once a new tile is added. */
+    private static double after(Model model, int target, Map<String, Double> memo) {
+        if (model.getBoard().maxValue() >= target) {
+            return 1;
+        }
+        int size = model.size();
+        double sum = 0;
+        int empty = model.getBoard().emptyCount();
+        for (int k = 0; k < empty; k += 1) {
+            int square = model.getBoard().emptySquare(k);
+            for (int value = 2; value <= 4; value += 2) {
+                Model next = model.copy();
+                next.addTile(Tile.create(value, square / size, square % size));
+                sum += (value == 2 ? PROB_OF_2 : 1 - PROB_OF_2)
+                    * value(next, target, memo);
+            }
+        }
+        return sum / empty;
+    }
+
+    /** Returns the exponents of MODEL as a string. */
+    private static String key(Model model) {
+        byte[] exponents = new byte[model.size() * model.size()];
+        model.getBoard().saveExponents(exponents, 0);
+        return Arrays.toString(exponents);
+    }
+}
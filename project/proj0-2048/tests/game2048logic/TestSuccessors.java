@@ -0,0 +1,109 @@
+package game2048logic;
+import game2048rendering.Side;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+/** Tests Model.legalMoves and Model.successor against tilting copies. */
+@Timeout(value = 60, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+public class TestSuccessors {
+
+    /** Checks the legal moves and successors of positions from random
+     *  games on boards of several sizes, including full boards. */
+    @Test
+    @Tag("successors")
+    @DisplayName("Successors match tilts of copies")
+    public void testSuccessors() {
+        Random random = new Random(23);
+        for (int size = 1; size <= 9; size += 1) {
+            Model model = new Model(size);
+            TileSpawner spawner = new TileSpawner(0.9, size);
+            model.addTile(spawner.newTile(model));
+            for (int move = 0; move < 300 && !model.legalMoves().isEmpty();
+                 move += 1) {
+                check(model);
+                List<Side> legal = model.legalMoves();
+                model.tiltWrapper(legal.get(random.nextInt(legal.size())));
+                if (model.emptySpaceExists()) {
+                    model.addTile(spawner.newTile(model));
+                }
+            }
+            check(model);
+        }
+    }
+
+    /** Expands one model from several threads at once, as a parallel
+     *  search does at its root, and checks every successor. */
+    @Test
+    @Tag("successors")
+    @DisplayName("Successors of a shared model")
+    public void testSharedModel() throws Exception {
+        Random random = new Random(31);
+        int size = 24;
+        Model model = new Model(size);
+        TileSpawner spawner = new TileSpawner(0.9, 31);
+        for (int k = 0; k < size * size / 2; k += 1) {
+            model.addTile(spawner.newTile(model));
+            model.tiltWrapper(Side.values()[random.nextInt(4)]);
+        }
+        byte[][] expected = new byte[4][size * size];
+        long[] points = new long[4];
+        for (Side side : Side.values()) {
+            points[side.ordinal()] =
+                model.successor(side, expected[side.ordinal()]);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t += 1) {
+                results.add(pool.submit(() -> {
+                    byte[] dest = new byte[size * size];
+                    for (int k = 0; k < 2000; k += 1) {
+                        Side side = Side.values()[k % 4];
+                        if (model.successor(side, dest) != points[k % 4]
+                            || !Arrays.equals(dest, expected[k % 4])) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertWithMessage("Successors agree").that(result.get())
+                        .isTrue();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Checks the legal moves and successors of MODEL. */
+    private static void check(Model model) {
+        String before = model.toString();
+        List<Side> expected = new ArrayList<>();
+        for (Side side : Side.values()) {
+            Model copy = model.copy();
+            boolean moved = copy.tiltWrapper(side).moved();
+            if (moved) {
+                expected.add(side);
+            }
+            Model next = model.successor(side);
+            assertWithMessage("Successor toward " + side + " of" + before)
+                    .that(next).isEqualTo(moved ? copy : null);
+        }
+        assertWithMessage("Legal moves of" + before).that(model.legalMoves())
+                .containsExactlyElementsIn(expected).inOrder();
+        assertWithMessage("Model changed").that(model.toString()).isEqualTo(before);
+    }
+}
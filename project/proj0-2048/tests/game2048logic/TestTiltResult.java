@@ -0,0 +1,86 @@
+package game2048logic;
+import game2048rendering.Side;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+/** Tests the TiltResults returned by Model.tilt and Model.tiltWrapper. */
+@Timeout(value = 60, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+public class TestTiltResult {
+
+    /** A tilt that changes nothing reports no movement. */
+    @Test
+    @Tag("tilt-result")
+    @DisplayName("No movement")
+    public void testNoMove() {
+        Model model = new Model(new int[][]{
+                {2, 4, 0, 0},
+                {0, 0, 0, 0},
+                {0, 0, 0, 0},
+                {0, 0, 0, 0}
+        }, 0);
+        TiltResult result = model.tiltWrapper(Side.NORTH);
+        assertWithMessage("Nothing moves up:" + model).that(result.moved()).isFalse();
+        assertWithMessage("Moves").that(result.moveCount()).isEqualTo(0);
+        assertWithMessage("Score").that(result.scoreDelta()).isEqualTo(0);
+    }
+
+    /** A tilt with a merge reports each tile move and the points earned. */
+    @Test
+    @Tag("tilt-result")
+    @DisplayName("Moves and merges")
+    public void testMerge() {
+        Model model = new Model(new int[][]{
+                {0, 0, 0, 0},
+                {2, 0, 0, 0},
+                {2, 0, 0, 0},
+                {4, 0, 0, 8}
+        }, 0);
+        TiltResult result = model.tiltWrapper(Side.NORTH);
+        assertWithMessage("Tiles move up:" + model).that(result.moved()).isTrue();
+        assertWithMessage("Merges").that(result.merges()).isEqualTo(1);
+        assertWithMessage("Score").that(result.scoreDelta()).isEqualTo(4);
+        assertWithMessage("Moves:" + result).that(result.moveCount()).isEqualTo(4);
+
+        assertWithMessage("First move:" + result).that(new int[] {
+                result.fromX(0), result.fromY(0), result.toX(0), result.toY(0)
+            }).isEqualTo(new int[] {0, 2, 0, 3});
+        assertWithMessage("Second move merges:" + result)
+                .that(result.merged(1)).isTrue();
+        assertWithMessage("Second move:" + result).that(new int[] {
+                result.fromX(1), result.fromY(1), result.toX(1), result.toY(1)
+            }).isEqualTo(new int[] {0, 1, 0, 3});
+        assertWithMessage("Fourth move:" + result).that(new int[] {
+                result.fromX(3), result.fromY(3), result.toX(3), result.toY(3)
+            }).isEqualTo(new int[] {3, 0, 3, 3});
+    }
+
+    /** Each Model returns one TiltResult from every tilt, which then
+     *  describes the latest one. */
+    @Test
+    @Tag("tilt-result")
+    @DisplayName("Result is reused")
+    public void testReused() {
+        Model model = new Model(new int[][]{
+                {2, 0, 0, 0},
+                {2, 0, 0, 0},
+                {0, 0, 0, 0},
+                {0, 0, 0, 0}
+        }, 0);
+        TiltResult first = model.tiltWrapper(Side.NORTH);
+        assertWithMessage("First tilt merges:" + first).that(first.merges())
+                .isEqualTo(1);
+        TiltResult second = model.tiltWrapper(Side.NORTH);
+        assertWithMessage("Same result").that(second).isSameInstanceAs(first);
+        assertWithMessage("Second tilt:" + second).that(second.moved())
+                .isFalse();
+        assertWithMessage("Second score").that(second.scoreDelta())
+                .isEqualTo(0);
+        assertWithMessage("Other model")
+                .that(model.copy().tiltWrapper(Side.SOUTH))
+                .isNotSameInstanceAs(first);
+    }
+}
@@ -0,0 +1,94 @@
+package game2048logic;
+import game2048rendering.Side;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+/** Tests the undo and redo of tilts in Model. */
+@Timeout(value = 60, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+public class TestUndo {
+
+    /** Plays a game, then undoes every tilt and redoes them all, checking
+     *  each position on the way. */
+    @Test
+    @Tag("undo")
+    @DisplayName("Undo and redo a whole game")
+    public void testUndoRedo() {
+        Model model = new Model(5);
+        model.setUndoLimit(1000);
+        List<String> positions = play(model, 300, 5);
+        int moves = positions.size() - 1;
+        assertWithMessage("Moves to undo").that(model.undoCount()).isEqualTo(moves);
+        for (int k = moves - 1; k >= 0; k -= 1) {
+            assertWithMessage("Undo before move " + k).that(model.undo()).isTrue();
+            assertWithMessage("Position before move " + k)
+                    .that(model.toString()).isEqualTo(positions.get(k));
+        }
+        assertWithMessage("Undo past the start").that(model.undo()).isFalse();
+        assertWithMessage("Moves to redo").that(model.redoCount()).isEqualTo(moves);
+        for (int k = 1; k <= moves; k += 1) {
+            assertWithMessage("Redo move " + k).that(model.redo()).isTrue();
+            assertWithMessage("Position after redo " + k)
+                    .that(model.toString()).isEqualTo(positions.get(k));
+        }
+        assertWithMessage("Redo past the end").that(model.redo()).isFalse();
+    }
+
+    /** Checks that only the last few tilts can be undone when the limit
+     *  is small, and that a tilt after an undo discards the redo. */
+    @Test
+    @Tag("undo")
+    @DisplayName("Undo is bounded and a new tilt ends redo")
+    public void testLimit() {
+        Model model = new Model(4);
+        model.setUndoLimit(7);
+        List<String> positions = play(model, 100, 11);
+        int moves = positions.size() - 1;
+        assertWithMessage("Moves to undo").that(model.undoCount()).isEqualTo(7);
+        for (int k = 1; k <= 7; k += 1) {
+            assertWithMessage("Undo " + k).that(model.undo()).isTrue();
+            assertWithMessage("Position after undo " + k)
+                    .that(model.toString()).isEqualTo(positions.get(moves - k));
+        }
+        assertWithMessage("Undo past the limit").that(model.undo()).isFalse();
+
+        model.redo();
+        for (Side side : Side.values()) {
+            if (model.tiltWrapper(side).moved()) {
+                break;
+            }
+        }
+        assertWithMessage("Redo after a new tilt").that(model.redoCount()).isEqualTo(0);
+        assertWithMessage("Undo after a new tilt").that(model.undoCount()).isEqualTo(2);
+
+        model.clear();
+        assertWithMessage("Undo after clear").that(model.undo()).isFalse();
+    }
+
+    /** Plays at most MOVES random tilts on MODEL, adding tiles as Game
+     *  does, using SEED. Returns the printed positions before each tilt
+     *  that changed the board, followed by the final position. */
+    private static List<String> play(Model model, int moves, long seed) {
+        Random random = new Random(seed);
+        TileSpawner spawner = new TileSpawner(0.9, seed);
+        model.addTile(spawner.newTile(model));
+        List<String> positions = new ArrayList<>();
+        for (int k = 0; k < moves && !model.gameOver(); ) {
+            String before = model.toString();
+            if (model.tiltWrapper(Side.values()[random.nextInt(4)]).moved()) {
+                positions.add(before);
+                k += 1;
+                model.addTile(spawner.newTile(model));
+            }
+        }
+        positions.add(model.toString());
+        return positions;
+    }
+}
@@ -2,6 +2,8 @@ package game2048logic;
 
 import game2048rendering.Side;
 
+import java.util.Random;
+
 import static com.google.common.truth.Truth.assertWithMessage;
 
 public class TestUtils {
@@ -19,4 +21,20 @@ public class TestUtils {
                 direction, prevBoard, after, before);
         assertWithMessage(errMsg).that(before).isEqualTo(after);
     }
+
+    /** Returns a model of size SIZE with score 0 in which each square
+     *  holds, with probability FILL, a tile whose exponent is chosen
+     *  uniformly from 1 to MAXEXPONENT, using RANDOM. */
+    public static Model randomModel(int size, double fill, int maxExponent,
+                                    Random random) {
+        Model model = new Model(size);
+        byte[] exponents = new byte[size * size];
+        for (int s = 0; s < exponents.length; s += 1) {
+            if (random.nextDouble() < fill) {
+                exponents[s] = (byte) (1 + random.nextInt(maxExponent));
+            }
+        }
+        model.getBoard().restoreExponents(exponents, 0);
+        return model;
+    }
 }
@@ -0,0 +1,98 @@
+package game2048rendering;
+import game2048logic.Model;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+import static game2048logic.TestUtils.randomModel;
+
+/** Tests that a board keeping Tiles for animation tilts just as a
+ *  headless one does, and links each old Tile to the one it became. */
+@Timeout(value = 60, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+public class TestAnimatedTilt {
+
+    /** Return the Tile that TILE finally became, following its
+     *  successors. */
+    private static Tile last(Tile tile) {
+        while (tile.next() != tile) {
+            tile = tile.next();
+        }
+        return tile;
+    }
+
+    /** Tilts random positions both with and without animation, and
+     *  compares the boards, the scores, the moves and merges, and, on the
+     *  animated board, the successor of every Tile that was there. */
+    @Test
+    @Tag("animation")
+    @DisplayName("animated tilts match headless tilts")
+    public void testSuccessors() {
+        Random random = new Random(41);
+        for (int size : new int[] { 2, 3, 4, 5, 8 }) {
+            for (int k = 0; k < 200; k += 1) {
+                Model position = randomModel(size, 0.7, 4, random);
+                for (Side side : Side.values()) {
+                    Model plain = position.copy();
+                    Model animated = position.copy();
+                    animated.getBoard().setAnimated(true);
+                    Tile[][] before = new Tile[size][size];
+                    for (int x = 0; x < size; x += 1) {
+                        for (int y = 0; y < size; y += 1) {
+                            before[x][y] = animated.tile(x, y);
+                        }
+                    }
+                    String what = side + " on\n" + position;
+
+                    plain.tiltWrapper(side);
+                    animated.tiltWrapper(side);
+                    assertWithMessage("board after %s", what)
+                        .that(animated.toString())
+                        .isEqualTo(plain.toString());
+                    assertWithMessage("score after %s", what)
+                        .that(animated.score()).isEqualTo(plain.score());
+                    long[] moves = plain.getBoard().moveLog();
+                    assertWithMessage("moves of %s", what)
+                        .that(animated.getBoard().moveLog())
+                        .isEqualTo(moves);
+
+                    int[] dest = new int[size * size];
+                    for (int s = 0; s < dest.length; s += 1) {
+                        dest[s] = s;
+                    }
+                    for (long move : moves) {
+                        dest[(int) (move >>> 32)] =
+                            (int) ((move & 0xffffffffL) >>> 1);
+                    }
+                    for (int x = 0; x < size; x += 1) {
+                        for (int y = 0; y < size; y += 1) {
+                            if (before[x][y] == null) {
+                                continue;
+                            }
+                            int to = dest[x * size + y];
+                            int tx = to / size, ty = to % size;
+                            Tile next = last(before[x][y]);
+                            String tile = String.format(
+                                "successor of (%d, %d) after %s", x, y, what);
+                            assertWithMessage(tile)
+                                .that(next).isSameInstanceAs(
+                                    animated.tile(tx, ty));
+                            assertWithMessage(tile).that(next.x())
+                                .isEqualTo(tx);
+                            assertWithMessage(tile).that(next.y())
+                                .isEqualTo(ty);
+                            assertWithMessage(tile).that(next.value())
+                                .isEqualTo(plain.tile(tx, ty).value());
+                            assertWithMessage("merged " + tile)
+                                .that(next.wasMerged()).isEqualTo(
+                                    plain.getBoard().wasMerged(tx, ty));
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
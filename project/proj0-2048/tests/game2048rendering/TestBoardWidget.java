@@ -0,0 +1,144 @@
+package game2048rendering;
+import game2048logic.Model;
+import game2048logic.TileSpawner;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+/** Tests of the snapshot queue and animation steps of BoardWidget, run
+ *  without a timer by calling step directly. */
+@Timeout(value = 60, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+public class TestBoardWidget {
+
+    /** Return a new 4x4 model with animation on and two random tiles from
+     *  SPAWNER. */
+    private static Model newGame(TileSpawner spawner) {
+        Model model = new Model(4);
+        model.getBoard().setAnimated(true);
+        model.addTile(spawner.newTile(model));
+        model.addTile(spawner.newTile(model));
+        return model;
+    }
+
+    /** Make a random tilt of MODEL that changes it, using RANDOM, and add
+     *  a tile from SPAWNER. */
+    private static void play(Model model, Random random,
+                             TileSpawner spawner) {
+        List<Side> legal = model.legalMoves();
+        model.tiltWrapper(legal.get(random.nextInt(legal.size())));
+        model.addTile(spawner.newTile(model));
+    }
+
+    /** Step WIDGET until it has nothing more to animate, and return the
+     *  number of steps taken. */
+    private static int finish(BoardWidget widget) {
+        int steps = 1;
+        while (widget.step()) {
+            steps += 1;
+            assertWithMessage("steps").that(steps).isLessThan(10000);
+        }
+        return steps;
+    }
+
+    /** Return the tiles of TILES as a set of "VALUE@X,Y". */
+    private static TreeSet<String> describe(Iterable<Tile> tiles) {
+        TreeSet<String> result = new TreeSet<>();
+        for (Tile tile : tiles) {
+            result.add(tile.value() + "@" + tile.x() + "," + tile.y());
+        }
+        return result;
+    }
+
+    /** Return the tiles of MODEL as a set of "VALUE@X,Y". */
+    private static TreeSet<String> describe(Model model) {
+        List<Tile> tiles = new ArrayList<>();
+        for (int x = 0; x < model.size(); x += 1) {
+            for (int y = 0; y < model.size(); y += 1) {
+                if (model.tile(x, y) != null) {
+                    tiles.add(model.tile(x, y));
+                }
+            }
+        }
+        return describe(tiles);
+    }
+
+    /** Animates one snapshot at a time and checks that each ends showing
+     *  the model as it was, and reports its score once. */
+    @Test
+    @Tag("widget")
+    @DisplayName("each snapshot animates to the model")
+    public void testSteps() {
+        Random random = new Random(3);
+        TileSpawner spawner = new TileSpawner(0.9, 3);
+        Model model = newGame(spawner);
+        BoardWidget widget = new BoardWidget(model.size());
+        List<Long> scores = new ArrayList<>();
+        widget.setScoreListener(scores::add);
+        List<Long> expected = new ArrayList<>();
+        for (int k = 0; k < 40 && !model.gameOver(); k += 1) {
+            if (k > 0) {
+                play(model, random, spawner);
+            }
+            widget.enqueue(model);
+            expected.add(model.score());
+            assertWithMessage("steps of move %s", k)
+                .that(finish(widget)).isGreaterThan(1);
+            assertWithMessage("tiles shown after move %s", k)
+                .that(describe(widget.shownTiles()))
+                .isEqualTo(describe(model));
+            assertWithMessage("game over shown after move %s", k)
+                .that(widget.gameOverShown()).isEqualTo(model.gameOver());
+        }
+        assertWithMessage("scores reported").that(scores)
+            .containsExactlyElementsIn(expected).inOrder();
+    }
+
+    /** Queues several snapshots before animating any and checks that only
+     *  the newest is shown and reported. */
+    @Test
+    @Tag("widget")
+    @DisplayName("waiting snapshots are dropped")
+    public void testDropped() {
+        Random random = new Random(8);
+        TileSpawner spawner = new TileSpawner(0.9, 8);
+        Model model = newGame(spawner);
+        BoardWidget widget = new BoardWidget(model.size());
+        List<Long> scores = new ArrayList<>();
+        widget.setScoreListener(scores::add);
+        widget.enqueue(model);
+        for (int k = 0; k < 5; k += 1) {
+            play(model, random, spawner);
+            widget.enqueue(model);
+        }
+        finish(widget);
+        assertWithMessage("scores reported").that(scores)
+            .containsExactly(model.score());
+        assertWithMessage("tiles shown").that(describe(widget.shownTiles()))
+            .isEqualTo(describe(model));
+        assertWithMessage("game over shown").that(widget.gameOverShown())
+            .isFalse();
+
+        scores.clear();
+        widget.enqueue(model);
+        widget.step();
+        while (!model.gameOver()) {
+            play(model, random, spawner);
+            widget.enqueue(model);
+        }
+        finish(widget);
+        assertWithMessage("scores reported mid-animation").that(scores)
+            .containsExactly(model.score());
+        assertWithMessage("tiles shown at end")
+            .that(describe(widget.shownTiles())).isEqualTo(describe(model));
+        assertWithMessage("game over shown at end")
+            .that(widget.gameOverShown()).isTrue();
+    }
+}